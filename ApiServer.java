@@ -0,0 +1,473 @@
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+// json over http for check-in stations, on the jdk server with a virtual thread per exchange:
+//   GET  /api/events?after=<id>&limit=<n>               events by id, a page at a time
+//   GET  /api/events/<id>                               one event with its participant counts
+//   GET  /api/events/<id>/participants?after=&limit=    its participants by id
+//   POST /api/events/<id>/participants {"name", "type"} registers one, 201 with the new id
+//   GET  /api/report?format=txt|csv|html|pdf            the report file
+// every request carries "Authorization: Bearer <token>" with the -Dems.api_token shared with
+// the stations. the server listens on loopback unless -Dems.http_all_interfaces=true.
+// reads use the reader pool. registrations join the check-in queue, which commits them in
+// batches on AsyncDb's single writer connection, so concurrent stations never meet
+// SQLITE_BUSY from each other and a rush costs one commit per batch
+class ApiServer implements AutoCloseable {
+    private static final int DEFAULT_LIMIT = 100;
+    private static final int MAX_LIMIT = 1000;
+    // registration bodies are a name and a type, anything bigger is not one
+    private static final int MAX_BODY = 16 * 1024;
+
+    private static final String EVENT_COLUMNS = "event_id, event_name, event_date, start_time, end_time,"
+            + " venue, organizer, participant_count";
+
+    private final AsyncDb db;
+    private final RegistrationQueue registrations;
+    private final HttpServer server;
+    private final byte[] authorization;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+    // a request the client got wrong, answered with its status and message
+    static final class ApiException extends Exception {
+        final int status;
+
+        ApiException(int status, String message) {
+            super(message);
+            this.status = status;
+        }
+    }
+
+    private ApiServer(AsyncDb db, RegistrationQueue registrations, HttpServer server, String token) {
+        this.db = db;
+        this.registrations = registrations;
+        this.server = server;
+        this.authorization = ("Bearer " + token).getBytes(StandardCharsets.UTF_8);
+        server.createContext("/api/", this::handle);
+        server.setExecutor(executor);
+    }
+
+    // port 0 picks a free one. refuses to start without a token, the api hands out every
+    // participant's name and takes registrations without the application's login
+    static ApiServer start(AsyncDb db, RegistrationQueue registrations, int port) throws IOException {
+        String token = System.getProperty("ems.api_token", "");
+        if (token.isBlank()) throw new IOException("set -Dems.api_token to the token the stations send");
+        InetAddress address = Boolean.getBoolean("ems.http_all_interfaces") ? null : InetAddress.getLoopbackAddress();
+        // the default backlog turns away connections when many stations start at once
+        ApiServer api = new ApiServer(db, registrations,
+                HttpServer.create(new InetSocketAddress(address, port), 1024), token);
+        api.server.start();
+        return api;
+    }
+
+    // headers and body go out as separate writes, and with nagle on each response then waits for
+    // the client's delayed ack, about 40 ms. the jdk reads the property once, when the first
+    // HttpServer is made, so Main and Batch call this at startup. a value given on the command
+    // line is left alone
+    static void disableNagle() {
+        if (System.getProperty("sun.net.httpserver.nodelay") == null) {
+            System.setProperty("sun.net.httpserver.nodelay", "true");
+        }
+    }
+
+    int port() {
+        return server.getAddress().getPort();
+    }
+
+    @Override
+    public void close() {
+        server.stop(1);
+        executor.shutdownNow();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            try {
+                authorize(exchange);
+                route(exchange);
+            } catch (ApiException e) {
+                sendError(exchange, e.status, e.getMessage());
+            } catch (CompletionException e) {
+                sendError(exchange, 500, String.valueOf(AsyncDb.cause(e).getMessage()));
+            } catch (RuntimeException e) {
+                sendError(exchange, 500, String.valueOf(e.getMessage()));
+            }
+        }
+    }
+
+    // compared in constant time, so the response time says nothing about how much of a guess was right
+    private void authorize(HttpExchange exchange) throws ApiException {
+        String header = exchange.getRequestHeaders().getFirst("Authorization");
+        if (header == null || !MessageDigest.isEqual(header.getBytes(StandardCharsets.UTF_8), authorization)) {
+            exchange.getResponseHeaders().set("WWW-Authenticate", "Bearer");
+            throw new ApiException(401, "missing or wrong api token");
+        }
+    }
+
+    private void route(HttpExchange exchange) throws IOException, ApiException {
+        String[] path = exchange.getRequestURI().getPath().substring("/api/".length()).split("/");
+        String method = exchange.getRequestMethod();
+        Map<String, String> query = query(exchange.getRequestURI().getRawQuery());
+
+        if (path.length == 1 && path[0].equals("events")) {
+            requireMethod(method, "GET");
+            sendJson(exchange, 200, listEvents(longParam(query, "after", 0), limit(query)));
+        } else if (path.length == 2 && path[0].equals("events")) {
+            requireMethod(method, "GET");
+            sendJson(exchange, 200, event(id(path[1])));
+        } else if (path.length == 3 && path[0].equals("events") && path[2].equals("participants")) {
+            int id = id(path[1]);
+            if (method.equals("POST")) {
+                sendJson(exchange, 201, register(id, Json.parseObject(body(exchange))));
+            } else {
+                requireMethod(method, "GET");
+                sendJson(exchange, 200, participants(id, longParam(query, "after", 0), limit(query)));
+            }
+        } else if (path.length == 1 && path[0].equals("report")) {
+            requireMethod(method, "GET");
+            sendReport(exchange, query.getOrDefault("format", "txt"));
+        } else {
+            throw new ApiException(404, "no such resource");
+        }
+    }
+
+    private String listEvents(long after, int limit) {
+        return db.readInBackground("api.events", s -> {
+            PreparedStatement ps = s.prepare("SELECT " + EVENT_COLUMNS
+                    + " FROM events WHERE event_id > ? ORDER BY event_id LIMIT ?");
+            ps.setLong(1, after);
+            ps.setInt(2, limit);
+            StringBuilder json = new StringBuilder("{\"events\":[");
+            long last = -1;
+            int count = 0;
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    if (count++ > 0) json.append(',');
+                    last = rs.getLong(1);
+                    appendEvent(json, rs);
+                }
+            }
+            json.append("],\"next\":");
+            // a full page may have more behind it
+            json.append(count == limit ? String.valueOf(last) : "null");
+            return json.append('}').toString();
+        }).join();
+    }
+
+    private String event(int id) throws ApiException {
+        String found = db.readInBackground("api.event", s -> {
+            PreparedStatement ps = s.prepare("SELECT " + EVENT_COLUMNS + " FROM events WHERE event_id = ?");
+            ps.setInt(1, id);
+            StringBuilder json = new StringBuilder();
+            try (ResultSet rs = ps.executeQuery()) {
+                if (!rs.next()) return null;
+                appendEvent(json, rs);
+            }
+            PreparedStatement types = s.prepare(
+                    "SELECT type, COUNT(*) FROM participants WHERE event_id = ? GROUP BY type ORDER BY type");
+            types.setInt(1, id);
+            json.setLength(json.length() - 1);
+            json.append(",\"byType\":{");
+            try (ResultSet rs = types.executeQuery()) {
+                for (int i = 0; rs.next(); i++) {
+                    if (i > 0) json.append(',');
+                    Json.string(json, rs.getString(1)).append(':').append(rs.getInt(2));
+                }
+            }
+            return json.append("}}").toString();
+        }).join();
+        // null from the task when the event does not exist
+        if (found == null) throw new ApiException(404, "no event " + id);
+        return found;
+    }
+
+    private String participants(int id, long after, int limit) throws ApiException {
+        String found = db.readInBackground("api.participants", s -> {
+            PreparedStatement exists = s.prepare("SELECT 1 FROM events WHERE event_id = ?");
+            exists.setInt(1, id);
+            try (ResultSet rs = exists.executeQuery()) {
+                if (!rs.next()) return null;
+            }
+            PreparedStatement ps = s.prepare(
+                    "SELECT id, name, type FROM participants WHERE event_id = ? AND id > ? ORDER BY id LIMIT ?");
+            ps.setInt(1, id);
+            ps.setLong(2, after);
+            ps.setInt(3, limit);
+            StringBuilder json = new StringBuilder("{\"participants\":[");
+            long last = -1;
+            int count = 0;
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    if (count++ > 0) json.append(',');
+                    last = rs.getLong(1);
+                    json.append("{\"id\":").append(last).append(",\"name\":");
+                    Json.string(json, rs.getString(2)).append(",\"type\":");
+                    Json.string(json, rs.getString(3)).append('}');
+                }
+            }
+            json.append("],\"next\":").append(count == limit ? String.valueOf(last) : "null");
+            return json.append('}').toString();
+        }).join();
+        // null from the task when the event does not exist
+        if (found == null) throw new ApiException(404, "no event " + id);
+        return found;
+    }
+
+    private String register(int eventId, Map<String, String> body) throws ApiException {
+        // a json null comes back as a null value, the same as a missing field
+        String name = body.get("name");
+        String type = body.get("type") == null ? null : CsvImporter.normalizeType(body.get("type"));
+        if (name == null || name.isBlank()) throw new ApiException(400, "name is required");
+        if (type == null) throw new ApiException(400, "type must be Student or Staff");
+        name = name.trim();
+
+        // answered once the batch holding it is committed
+        Long id = registrations.submit(eventId, name, type).join();
+        if (id == null) throw new ApiException(404, "no event " + eventId);
+
+        StringBuilder json = new StringBuilder("{\"id\":").append(id).append(",\"event\":").append(eventId);
+        json.append(",\"name\":");
+        Json.string(json, name).append(",\"type\":");
+        return Json.string(json, type).append('}').toString();
+    }
+
+    // the export goes to a scratch file first, the text formats put their summary back at the top
+    private void sendReport(HttpExchange exchange, String format) throws IOException, ApiException {
+        String contentType = switch (format) {
+            case "txt" -> "text/plain; charset=utf-8";
+            case "csv" -> "text/csv; charset=utf-8";
+            case "html" -> "text/html; charset=utf-8";
+            case "pdf" -> "application/pdf";
+            default -> throw new ApiException(400, "format must be txt, csv, html or pdf");
+        };
+        Path dir = Files.createTempDirectory("ems-api");
+        Path file = dir.resolve("report." + format);
+        try {
+            db.readInBackground("api.report",
+                    s -> ReportExport.run(s, file, "api", () -> false, new AtomicLong())).join();
+            exchange.getResponseHeaders().set("Content-Type", contentType);
+            exchange.sendResponseHeaders(200, Files.size(file));
+            try (OutputStream out = exchange.getResponseBody()) {
+                Files.copy(file, out);
+            }
+        } finally {
+            Files.deleteIfExists(file);
+            Files.deleteIfExists(dir);
+        }
+    }
+
+    private static void appendEvent(StringBuilder json, ResultSet rs) throws SQLException {
+        json.append("{\"id\":").append(rs.getInt(1)).append(",\"name\":");
+        Json.string(json, rs.getString(2)).append(",\"date\":");
+        Json.string(json, rs.getString(3)).append(",\"start\":");
+        Json.string(json, rs.getString(4)).append(",\"end\":");
+        Json.string(json, rs.getString(5)).append(",\"venue\":");
+        Json.string(json, rs.getString(6)).append(",\"organizer\":");
+        Json.string(json, rs.getString(7)).append(",\"participants\":").append(rs.getInt(8)).append('}');
+    }
+
+    private static void requireMethod(String method, String allowed) throws ApiException {
+        if (!method.equals(allowed)) throw new ApiException(405, method + " not allowed here");
+    }
+
+    private static int id(String text) throws ApiException {
+        try {
+            return Integer.parseInt(text);
+        } catch (NumberFormatException e) {
+            throw new ApiException(404, "no event " + text);
+        }
+    }
+
+    private static int limit(Map<String, String> query) throws ApiException {
+        long limit = longParam(query, "limit", DEFAULT_LIMIT);
+        if (limit < 1 || limit > MAX_LIMIT) throw new ApiException(400, "limit must be 1 to " + MAX_LIMIT);
+        return (int) limit;
+    }
+
+    private static long longParam(Map<String, String> query, String name, long fallback) throws ApiException {
+        String value = query.get(name);
+        if (value == null) return fallback;
+        try {
+            return Long.parseLong(value);
+        } catch (NumberFormatException e) {
+            throw new ApiException(400, name + " must be a number");
+        }
+    }
+
+    private static Map<String, String> query(String raw) {
+        Map<String, String> params = new HashMap<>();
+        if (raw == null) return params;
+        for (String pair : raw.split("&")) {
+            int eq = pair.indexOf('=');
+            if (eq < 0) continue;
+            params.put(URLDecoder.decode(pair.substring(0, eq), StandardCharsets.UTF_8),
+                    URLDecoder.decode(pair.substring(eq + 1), StandardCharsets.UTF_8));
+        }
+        return params;
+    }
+
+    private static String body(HttpExchange exchange) throws IOException, ApiException {
+        try (InputStream in = exchange.getRequestBody()) {
+            byte[] bytes = in.readNBytes(MAX_BODY + 1);
+            if (bytes.length > MAX_BODY) throw new ApiException(413, "request body too large");
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+    }
+
+    private static void sendJson(HttpExchange exchange, int status, String json) throws IOException {
+        byte[] bytes = json.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    private static void sendError(HttpExchange exchange, int status, String message) throws IOException {
+        // the response may already be on its way, nothing more can be said then
+        if (exchange.getResponseCode() != -1) return;
+        sendJson(exchange, status, Json.string(new StringBuilder("{\"error\":"), message).append('}').toString());
+    }
+
+    // just enough json for the api: string output, and flat objects of strings and numbers in
+    static final class Json {
+        static StringBuilder string(StringBuilder sb, String value) {
+            if (value == null) return sb.append("null");
+            sb.append('"');
+            for (int i = 0; i < value.length(); i++) {
+                char c = value.charAt(i);
+                switch (c) {
+                    case '"' -> sb.append("\\\"");
+                    case '\\' -> sb.append("\\\\");
+                    case '\n' -> sb.append("\\n");
+                    case '\r' -> sb.append("\\r");
+                    case '\t' -> sb.append("\\t");
+                    default -> {
+                        if (c < 0x20) {
+                            sb.append(String.format("\\u%04x", (int) c));
+                        } else {
+                            sb.append(c);
+                        }
+                    }
+                }
+            }
+            return sb.append('"');
+        }
+
+        // values are strings, or null for a json null
+        static Map<String, String> parseObject(String text) throws ApiException {
+            Map<String, String> fields = new HashMap<>();
+            int[] pos = {skip(text, 0)};
+            expect(text, pos, '{');
+            if (peek(text, pos) == '}') {
+                pos[0]++;
+            } else {
+                do {
+                    String key = parseString(text, pos);
+                    expect(text, pos, ':');
+                    fields.put(key, peek(text, pos) == '"' ? parseString(text, pos) : bare(parseBare(text, pos)));
+                } while (next(text, pos, ','));
+                expect(text, pos, '}');
+            }
+            if (skip(text, pos[0]) != text.length()) throw malformed();
+            return fields;
+        }
+
+        private static String parseString(String text, int[] pos) throws ApiException {
+            expect(text, pos, '"');
+            StringBuilder sb = new StringBuilder();
+            for (int i = pos[0]; i < text.length(); i++) {
+                char c = text.charAt(i);
+                if (c == '"') {
+                    pos[0] = i + 1;
+                    return sb.toString();
+                }
+                if (c != '\\') {
+                    sb.append(c);
+                    continue;
+                }
+                if (++i == text.length()) break;
+                switch (text.charAt(i)) {
+                    case 'n' -> sb.append('\n');
+                    case 'r' -> sb.append('\r');
+                    case 't' -> sb.append('\t');
+                    case 'b' -> sb.append('\b');
+                    case 'f' -> sb.append('\f');
+                    case 'u' -> {
+                        if (i + 4 >= text.length()) throw malformed();
+                        try {
+                            sb.append((char) Integer.parseInt(text.substring(i + 1, i + 5), 16));
+                        } catch (NumberFormatException e) {
+                            throw malformed();
+                        }
+                        i += 4;
+                    }
+                    default -> sb.append(text.charAt(i));
+                }
+            }
+            throw malformed();
+        }
+
+        // json null is a null value, not the text "null"
+        private static String bare(String value) {
+            return value.equals("null") ? null : value;
+        }
+
+        // numbers, true, false and null, kept as their text
+        private static String parseBare(String text, int[] pos) throws ApiException {
+            int start = pos[0], end = start;
+            while (end < text.length() && (Character.isLetterOrDigit(text.charAt(end))
+                    || "+-.".indexOf(text.charAt(end)) >= 0)) {
+                end++;
+            }
+            if (end == start) throw malformed();
+            pos[0] = end;
+            return text.substring(start, end);
+        }
+
+        private static void expect(String text, int[] pos, char c) throws ApiException {
+            if (peek(text, pos) != c) throw malformed();
+            pos[0]++;
+        }
+
+        private static boolean next(String text, int[] pos, char c) {
+            if (peek(text, pos) != c) return false;
+            pos[0]++;
+            return true;
+        }
+
+        // the next character that is not white space, or 0 at the end
+        private static char peek(String text, int[] pos) {
+            pos[0] = skip(text, pos[0]);
+            return pos[0] < text.length() ? text.charAt(pos[0]) : 0;
+        }
+
+        private static int skip(String text, int i) {
+            while (i < text.length() && Character.isWhitespace(text.charAt(i))) i++;
+            return i;
+        }
+
+        private static ApiException malformed() {
+            return new ApiException(400, "body must be a json object of strings");
+        }
+    }
+}
@@ -0,0 +1,154 @@
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.*;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.StringJoiner;
+
+// past events and their participants moved out to a second sqlite file, attached as
+// "archive" only while it is written or read. the hot file keeps current and upcoming
+// events, so the table, reports and indexes stay the size of the present. the counters,
+// rollups and change log are left as they were, history stays in the dashboard
+final class Archive {
+    // default age of the cut-off in days, -Dems.archive_days
+    static final int DEFAULT_DAYS = Integer.getInteger("ems.archive_days", 365);
+    // one transaction moves at most this many participants, and always at least one event
+    private static final int BATCH_PARTICIPANTS = 5_000;
+    private static final int BATCH_EVENTS = 500;
+
+    private static final String EVENT_COLUMNS = "event_id, event_name, event_date, venue, organizer,"
+            + " start_time, end_time, participant_count, student_count, staff_count";
+
+    record Moved(int events, int participants) {
+        Moved plus(Moved other) {
+            return new Moved(events + other.events, participants + other.participants);
+        }
+    }
+
+    private Archive() {
+    }
+
+    // next to the database, university_events.db archives to university_events_archive.db.
+    // -Dems.archive names another file
+    static Path fileFor(String url) {
+        String override = System.getProperty("ems.archive");
+        if (override != null) return Path.of(override);
+        String path = url.substring("jdbc:sqlite:".length());
+        return Path.of(path.endsWith(".db") ? path.substring(0, path.length() - 3) + "_archive.db" : path + "_archive");
+    }
+
+    static String defaultCutoff() {
+        return LocalDate.now(ZoneOffset.UTC).minusDays(DEFAULT_DAYS).toString();
+    }
+
+    // moves the oldest events dated before the cut-off, and their participants. the copy and the
+    // delete are separate transactions, so a crash in between leaves an event in both files rather
+    // than in neither. the next run copies it again over itself, and archive reports skip archived
+    // events that are still in the hot file. no events moved means there is nothing left to move
+    static Moved moveBatch(StatementCache statements, Path file, String cutoff) throws SQLException {
+        PreparedStatement ps = statements.prepare("SELECT event_id, participant_count FROM events"
+                + " WHERE event_date < ? ORDER BY event_date, event_id LIMIT " + BATCH_EVENTS);
+        ps.setString(1, cutoff);
+        List<Integer> ids = new ArrayList<>();
+        int participants = 0;
+        try (ResultSet rs = ps.executeQuery()) {
+            while (rs.next()) {
+                if (!ids.isEmpty() && participants + rs.getInt(2) > BATCH_PARTICIPANTS) break;
+                ids.add(rs.getInt(1));
+                participants += rs.getInt(2);
+            }
+        }
+        if (ids.isEmpty()) return new Moved(0, 0);
+
+        StringJoiner in = new StringJoiner(",", "(", ")");
+        for (int id : ids) in.add(Integer.toString(id));
+
+        Connection conn = statements.connection();
+        attach(conn, file);
+        boolean autoCommit = conn.getAutoCommit();
+        try (Statement stmt = conn.createStatement()) {
+            createTables(stmt);
+            conn.setAutoCommit(false);
+            try {
+                stmt.execute("INSERT OR REPLACE INTO archive.events (" + EVENT_COLUMNS + ") SELECT "
+                        + EVENT_COLUMNS + " FROM main.events WHERE event_id IN " + in);
+                stmt.execute("INSERT OR REPLACE INTO archive.participants (id, event_id, name, type)"
+                        + " SELECT id, event_id, name, type FROM main.participants WHERE event_id IN " + in);
+                conn.commit();
+
+                stmt.execute("INSERT INTO archiving VALUES (1)");
+                stmt.execute("DELETE FROM main.participants WHERE event_id IN " + in);
+                stmt.execute("DELETE FROM main.events WHERE event_id IN " + in);
+                stmt.execute("DELETE FROM archiving");
+                conn.commit();
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(autoCommit);
+            }
+        } finally {
+            detach(conn);
+        }
+        return new Moved(ids.size(), participants);
+    }
+
+    // runs the task with the archive attached, for queries that read it as archive.*
+    static <T> T withArchive(StatementCache statements, Path file, SqlTask<T> task)
+            throws SQLException, java.io.IOException {
+        attach(statements.connection(), file);
+        try {
+            return task.run(statements);
+        } finally {
+            detach(statements.connection());
+        }
+    }
+
+    // there is nothing to attach for reading until the first events are archived
+    static boolean exists(Path file) {
+        return Files.isRegularFile(file);
+    }
+
+    private static void attach(Connection conn, Path file) throws SQLException {
+        try (PreparedStatement ps = conn.prepareStatement("ATTACH DATABASE ? AS archive")) {
+            ps.setString(1, file.toString());
+            ps.execute();
+        }
+    }
+
+    private static void detach(Connection conn) throws SQLException {
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute("DETACH DATABASE archive");
+        }
+    }
+
+    // the hot tables' shape without the triggers, the archive only ever grows
+    private static void createTables(Statement stmt) throws SQLException {
+        stmt.execute("PRAGMA archive.journal_mode = WAL");
+        stmt.execute("""
+                CREATE TABLE IF NOT EXISTS archive.events (
+                event_id INTEGER PRIMARY KEY,
+                event_name TEXT NOT NULL,
+                event_date TEXT NOT NULL,
+                venue TEXT NOT NULL,
+                organizer TEXT NOT NULL,
+                start_time TEXT,
+                end_time TEXT,
+                participant_count INTEGER NOT NULL,
+                student_count INTEGER NOT NULL,
+                staff_count INTEGER NOT NULL)
+                """);
+        stmt.execute("""
+                CREATE TABLE IF NOT EXISTS archive.participants (
+                id INTEGER PRIMARY KEY,
+                event_id INTEGER NOT NULL,
+                name TEXT NOT NULL,
+                type TEXT NOT NULL)
+                """);
+        stmt.execute("CREATE INDEX IF NOT EXISTS archive.idx_archive_events_date ON events(event_date)");
+        stmt.execute("CREATE INDEX IF NOT EXISTS archive.idx_archive_participants_event"
+                + " ON participants(event_id, type, name)");
+    }
+}
@@ -0,0 +1,202 @@
+import javax.swing.*;
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+// runs database work on virtual threads so the EDT never waits on jdbc.
+// writes share one connection, reads borrow from a small pool of read-only ones
+class AsyncDb implements AutoCloseable {
+    // completes callbacks back on the Swing thread
+    static final Executor EDT = SwingUtilities::invokeLater;
+    // how long close waits for running tasks to let go of their connections
+    private static final long CLOSE_TIMEOUT_SECONDS = 5;
+
+    private final StatementCache writer;
+    // a sqlite connection must not be used by two threads at once
+    private final ReentrantLock writeLock = new ReentrantLock();
+    private final List<StatementCache> readers = new ArrayList<>();
+    private final BlockingQueue<StatementCache> idleReaders;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private volatile Consumer<Boolean> busyListener = busy -> { };
+
+    // latest submission per key, so a new load can cancel the one it replaces
+    private final Map<String, Future<?>> latest = new ConcurrentHashMap<>();
+
+    // opens the writer and brings the schema up to date, then opens the readers
+    static AsyncDb open(String url, StorageProfile profile) throws SQLException {
+        Connection conn = profile.openWriter(url);
+        AsyncDb db = new AsyncDb(conn, profile.readers());
+        try {
+            for (int i = 0; i < profile.readers(); i++) {
+                db.addReader(profile.openReader(url));
+            }
+        } catch (SQLException e) {
+            db.close();
+            throw e;
+        }
+        return db;
+    }
+
+    // the same, off the calling thread, so the driver load and schema check overlap with
+    // building the ui
+    static CompletableFuture<AsyncDb> openAsync(String url, StorageProfile profile) {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                Class.forName("org.sqlite.JDBC");
+                return open(url, profile);
+            } catch (ClassNotFoundException | SQLException e) {
+                throw new CompletionException(e);
+            }
+        }, r -> Thread.ofVirtual().name("db-open").start(r));
+    }
+
+    AsyncDb(Connection conn, int readerCount) {
+        this.writer = new StatementCache(conn, StatementCache.DEFAULT_CAPACITY);
+        this.idleReaders = new ArrayBlockingQueue<>(Math.max(1, readerCount));
+    }
+
+    private void addReader(Connection conn) {
+        StatementCache reader = new StatementCache(conn, StatementCache.DEFAULT_CAPACITY);
+        readers.add(reader);
+        idleReaders.add(reader);
+    }
+
+    StatementCache statements() {
+        return writer;
+    }
+
+    // statement cache counters summed over every connection
+    String cacheStats() {
+        long hits = writer.hits(), misses = writer.misses(), evictions = writer.evictions();
+        for (StatementCache reader : readers) {
+            hits += reader.hits();
+            misses += reader.misses();
+            evictions += reader.evictions();
+        }
+        return String.format("Statement cache: %d connections, %d hits, %d misses, %d evictions",
+                readers.size() + 1, hits, misses, evictions);
+    }
+
+    // called on the EDT whenever work starts or everything has finished
+    void setBusyListener(Consumer<Boolean> busyListener) {
+        this.busyListener = busyListener;
+    }
+
+    // operation names what the task does in Metrics and the diagnostics events
+    <T> CompletableFuture<T> read(String operation, SqlTask<T> task) {
+        return submit(operation, task, false, true);
+    }
+
+    <T> CompletableFuture<T> write(String operation, SqlTask<T> task) {
+        return submit(operation, task, true, true);
+    }
+
+    // a read nobody at this desktop is waiting on, kept out of the busy indicator
+    <T> CompletableFuture<T> readInBackground(String operation, SqlTask<T> task) {
+        return submit(operation, task, false, false);
+    }
+
+    // a write for housekeeping the user did not ask for, kept out of the busy indicator
+    <T> CompletableFuture<T> writeInBackground(String operation, SqlTask<T> task) {
+        return submit(operation, task, true, false);
+    }
+
+    // like read, but cancels whatever was last submitted under the same operation
+    <T> CompletableFuture<T> readLatest(String operation, SqlTask<T> task) {
+        CompletableFuture<T> result = read(operation, task);
+        Future<?> previous = latest.put(operation, result);
+        if (previous != null) previous.cancel(true);
+        result.whenComplete((v, e) -> latest.remove(operation, result));
+        return result;
+    }
+
+    private <T> CompletableFuture<T> submit(String operation, SqlTask<T> task, boolean write, boolean visible) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        Future<?> running = executor.submit(() -> {
+            try {
+                if (result.isDone()) return;
+                if (write || readers.isEmpty()) {
+                    writeLock.lockInterruptibly();
+                    try {
+                        // superseded while waiting for the connection
+                        if (result.isDone()) return;
+                        result.complete(Metrics.time(operation, true, writer, task));
+                    } finally {
+                        writeLock.unlock();
+                    }
+                } else {
+                    StatementCache reader = idleReaders.take();
+                    try {
+                        if (result.isDone()) return;
+                        result.complete(Metrics.time(operation, false, reader, task));
+                    } finally {
+                        idleReaders.add(reader);
+                    }
+                }
+            } catch (InterruptedException e) {
+                result.cancel(false);
+            } catch (Throwable e) {
+                result.completeExceptionally(e);
+            }
+        });
+        // counted once submitted, so a submit refused after close leaves the busy count alone.
+        // finished only runs from the callback registered after this
+        if (visible) started();
+        result.whenComplete((v, e) -> {
+            if (result.isCancelled()) running.cancel(true);
+            if (visible) finished();
+        });
+        return result;
+    }
+
+    private void started() {
+        if (inFlight.getAndIncrement() == 0) {
+            SwingUtilities.invokeLater(() -> busyListener.accept(inFlight.get() > 0));
+        }
+    }
+
+    private void finished() {
+        if (inFlight.decrementAndGet() == 0) {
+            SwingUtilities.invokeLater(() -> busyListener.accept(inFlight.get() > 0));
+        }
+    }
+
+    @Override
+    public void close() throws SQLException {
+        executor.shutdownNow();
+        // interrupted tasks still hold a connection until jdbc returns, closing it under them
+        // could fail mid-statement. a task stuck past the timeout gets its connection closed anyway
+        try {
+            executor.awaitTermination(CLOSE_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        for (StatementCache reader : readers) {
+            reader.close();
+            reader.connection().close();
+        }
+        writeLock.lock();
+        try {
+            writer.close();
+            writer.connection().close();
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    // unwraps the CompletionException wrapper for display
+    static Throwable cause(Throwable e) {
+        return e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+    }
+
+    static boolean isCancellation(Throwable e) {
+        return cause(e) instanceof CancellationException;
+    }
+}
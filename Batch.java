@@ -0,0 +1,142 @@
+import java.io.IOException;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.concurrent.atomic.AtomicLong;
+
+// command line entry point for scheduled jobs, runs without Swing:
+//   java -cp <jar>:lib/* Batch [--db file] report [--include-archive] <out.txt|.csv|.html|.pdf>
+//   java -cp <jar>:lib/* Batch [--db file] import <participants.csv>...
+//   java -cp <jar>:lib/* Batch [--db file] serve <port>
+//   java -cp <jar>:lib/* Batch [--db file] archive <before YYYY-MM-DD>
+public class Batch {
+    private static final String USAGE = """
+            usage: Batch [--db <file>] report [--include-archive] <out.txt|.csv|.html|.pdf>
+                   Batch [--db <file>] import <participants.csv>...
+                   Batch [--db <file>] serve <port>
+                   Batch [--db <file>] archive <before YYYY-MM-DD>""";
+
+    public static void main(String[] args) {
+        // nothing here needs a display, make sure nothing tries to open one
+        System.setProperty("java.awt.headless", "true");
+
+        String url = StorageProfile.DEFAULT_URL;
+        int i = 0;
+        if (args.length >= 2 && args[0].equals("--db")) {
+            url = "jdbc:sqlite:" + args[1];
+            i = 2;
+        }
+        if (args.length - i < 2) {
+            System.err.println(USAGE);
+            System.exit(2);
+        }
+
+        String command = args[i];
+        if (command.equals("serve")) {
+            serve(url, args[i + 1]);
+            return;
+        }
+        try (Connection conn = StorageProfile.fromSystemProperties().openWriter(url);
+             StatementCache statements = new StatementCache(conn, StatementCache.DEFAULT_CAPACITY)) {
+            switch (command) {
+                case "report" -> {
+                    boolean withArchive = args[i + 1].equals("--include-archive");
+                    if (withArchive && args.length - i < 3) {
+                        System.err.println(USAGE);
+                        System.exit(2);
+                    }
+                    report(statements, Path.of(args[withArchive ? i + 2 : i + 1]),
+                            withArchive ? Archive.fileFor(url) : null);
+                }
+                case "import" -> {
+                    for (int f = i + 1; f < args.length; f++) {
+                        importFile(statements, Path.of(args[f]));
+                    }
+                }
+                case "archive" -> archive(statements, Archive.fileFor(url), args[i + 1]);
+                default -> {
+                    System.err.println(USAGE);
+                    System.exit(2);
+                }
+            }
+        } catch (SQLException | IOException e) {
+            System.err.println(command + " failed: " + e.getMessage());
+            System.exit(1);
+        }
+    }
+
+    // the http api without the desktop ui, until the process is stopped
+    private static void serve(String url, String port) {
+        ApiServer.disableNagle();
+        try {
+            AsyncDb db = AsyncDb.open(url, StorageProfile.fromSystemProperties());
+            // housekeeping the desktop application does once its window is up
+            db.writeInBackground("changes.trim", s -> {
+                Schema.trimChangeLog(s.connection());
+                return null;
+            }).exceptionally(e -> {
+                System.err.println("change log trim failed: " + AsyncDb.cause(e).getMessage());
+                return null;
+            });
+            RegistrationQueue registrations = new RegistrationQueue(db);
+            ApiServer api = ApiServer.start(db, registrations, Integer.parseInt(port));
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                api.close();
+                try {
+                    registrations.close();
+                    db.close();
+                } catch (SQLException ignored) {
+                }
+            }));
+            System.out.println("API listening on port " + api.port());
+        } catch (SQLException | IOException | NumberFormatException e) {
+            System.err.println("serve failed: " + e.getMessage());
+            System.exit(1);
+        }
+    }
+
+    // archive is null for the hot events only
+    private static void report(StatementCache statements, Path out, Path archive) throws SQLException, IOException {
+        long start = System.nanoTime();
+        String user = System.getProperty("user.name");
+        if (archive != null && Archive.exists(archive)) {
+            Metrics.time("report.export", true, statements, s -> Archive.withArchive(s, archive,
+                    a -> ReportExport.run(a, out, user, () -> false, new AtomicLong(), true)));
+        } else {
+            Metrics.time("report.export", true, statements,
+                    s -> ReportExport.run(s, out, user, () -> false, new AtomicLong()));
+        }
+        System.out.printf("Report written to %s in %d ms%n", out, (System.nanoTime() - start) / 1_000_000);
+    }
+
+    // one batch per transaction until nothing dated before the cut-off is left
+    private static void archive(StatementCache statements, Path file, String cutoff) throws SQLException, IOException {
+        try {
+            LocalDate.parse(cutoff);
+        } catch (DateTimeParseException e) {
+            System.err.println("archive: the cut-off must be a date as YYYY-MM-DD, not " + cutoff);
+            System.exit(2);
+        }
+        long start = System.nanoTime();
+        Archive.Moved total = new Archive.Moved(0, 0);
+        Archive.Moved moved;
+        do {
+            moved = Metrics.time("events.archive", true, statements, s -> Archive.moveBatch(s, file, cutoff));
+            total = total.plus(moved);
+        } while (moved.events() > 0);
+        System.out.printf("Archived %d events and %d participants before %s to %s in %.1f s%n",
+                total.events(), total.participants(), cutoff, file, (System.nanoTime() - start) / 1e9);
+    }
+
+    private static void importFile(StatementCache statements, Path csv) throws SQLException, IOException {
+        CsvImporter.Result result =
+                Metrics.time("participants.import", true, statements, s -> new CsvImporter(s).importFile(csv));
+        System.out.printf("%s: imported %d participants in %.1f s (%.0f rows/s), rejected %d%n",
+                csv, result.imported(), result.millis() / 1000.0, result.rowsPerSecond(), result.rejected());
+        for (String error : result.errors()) {
+            System.out.println("  " + error);
+        }
+    }
+}
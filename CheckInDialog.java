@@ -0,0 +1,175 @@
+import javax.swing.*;
+import java.awt.*;
+import java.awt.event.ActionEvent;
+import java.awt.event.KeyEvent;
+import java.awt.event.WindowAdapter;
+import java.awt.event.WindowEvent;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+
+// rapid check-in for one event: type or scan a name, press enter, next. entries go to the
+// registration queue and the field is ready again at once, the list shows each one
+// turn from queued to saved as its batch commits
+class CheckInDialog extends JDialog {
+    private static final int RECENT = 100;
+
+    // one line of the recent list, updated in place when its batch commits
+    private static final class Entry {
+        final String name;
+        final String type;
+        String status = "queued";
+
+        Entry(String name, String type) {
+            this.name = name;
+            this.type = type;
+        }
+
+        @Override
+        public String toString() {
+            return name + " (" + type + ")  " + status;
+        }
+    }
+
+    private final AsyncDb db;
+    private final RegistrationQueue queue;
+    private final int eventId;
+    private final Runnable onSaved;
+
+    private final JTextField name = new JTextField(24);
+    private final JComboBox<String> type = new JComboBox<>(new String[]{"Student", "Staff"});
+    private final JLabel registered = new JLabel();
+    private final JLabel session = new JLabel();
+    private final DefaultListModel<Entry> recent = new DefaultListModel<>();
+    private final JList<Entry> recentList = new JList<>(recent);
+
+    // all on the EDT
+    private int committedCount;
+    private int queued;
+    private int saved;
+    private int failed;
+    private boolean savedSinceReload;
+
+    // onSaved runs on the EDT, at most once a tick, after entries were committed
+    CheckInDialog(JFrame owner, AsyncDb db, RegistrationQueue queue, EventTableModel.EventRow event,
+                  Runnable onSaved) {
+        super(owner, "Check-In: " + event.name(), false);
+        this.db = db;
+        this.queue = queue;
+        this.eventId = event.id();
+        this.onSaved = onSaved;
+        this.committedCount = event.participants();
+        setSize(520, 560);
+        setLayout(new BorderLayout(8, 8));
+        setLocationRelativeTo(owner);
+        setDefaultCloseOperation(DISPOSE_ON_CLOSE);
+
+        JPanel north = new JPanel(new GridLayout(0, 1, 4, 4));
+        north.setBorder(BorderFactory.createEmptyBorder(10, 10, 0, 10));
+        north.add(new JLabel(event.name() + ", " + event.date() + " " + event.time() + ", " + event.venue()));
+        registered.setFont(registered.getFont().deriveFont(Font.BOLD, 28f));
+        north.add(registered);
+        north.add(session);
+
+        JPanel entry = new JPanel(new FlowLayout(FlowLayout.LEFT));
+        JButton register = new JButton("Register");
+        entry.add(new JLabel("Name:"));
+        entry.add(name);
+        entry.add(type);
+        entry.add(register);
+        north.add(entry);
+        north.add(new JLabel("Enter registers, F2 Student, F3 Staff"));
+        add(north, BorderLayout.NORTH);
+
+        recentList.setFocusable(false);
+        add(new JScrollPane(recentList), BorderLayout.CENTER);
+
+        // scanners type the name and press enter
+        name.addActionListener(e -> submit());
+        register.addActionListener(e -> submit());
+        bind(KeyEvent.VK_F2, "student", () -> type.setSelectedIndex(0));
+        bind(KeyEvent.VK_F3, "staff", () -> type.setSelectedIndex(1));
+
+        Timer timer = new Timer(500, e -> tick());
+        addWindowListener(new WindowAdapter() {
+            @Override
+            public void windowOpened(WindowEvent e) {
+                name.requestFocusInWindow();
+            }
+
+            @Override
+            public void windowClosed(WindowEvent e) {
+                timer.stop();
+                // entries still queued are committed all the same, the change watcher shows them
+                if (savedSinceReload) onSaved.run();
+            }
+        });
+        updateLabels();
+        timer.start();
+    }
+
+    private void bind(int key, String action, Runnable run) {
+        getRootPane().getInputMap(JComponent.WHEN_IN_FOCUSED_WINDOW).put(KeyStroke.getKeyStroke(key, 0), action);
+        getRootPane().getActionMap().put(action, new AbstractAction() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                run.run();
+            }
+        });
+    }
+
+    private void submit() {
+        String text = name.getText().trim();
+        if (text.isEmpty()) {
+            Toolkit.getDefaultToolkit().beep();
+            return;
+        }
+        name.setText("");
+        Entry entry = new Entry(text, type.getSelectedItem().toString());
+        recent.add(0, entry);
+        if (recent.size() > RECENT) recent.remove(RECENT);
+        queued++;
+        updateLabels();
+
+        queue.submit(eventId, entry.name, entry.type).whenCompleteAsync((id, e) -> {
+            queued--;
+            if (e != null) {
+                failed++;
+                entry.status = "FAILED: " + AsyncDb.cause(e).getMessage();
+            } else if (id == null) {
+                failed++;
+                entry.status = "FAILED: event no longer exists";
+            } else {
+                saved++;
+                savedSinceReload = true;
+                entry.status = "saved #" + id;
+            }
+            recentList.repaint();
+            updateLabels();
+        }, AsyncDb.EDT);
+    }
+
+    // committed count from the database, so other stations' registrations show up too
+    private void tick() {
+        db.readInBackground("checkin.count", s -> {
+            PreparedStatement ps = s.prepare("SELECT participant_count FROM events WHERE event_id = ?");
+            ps.setInt(1, eventId);
+            try (ResultSet rs = ps.executeQuery()) {
+                return rs.next() ? rs.getInt(1) : -1;
+            }
+        }).whenCompleteAsync((count, e) -> {
+            if (e != null || !isDisplayable()) return;
+            committedCount = count;
+            updateLabels();
+        }, AsyncDb.EDT);
+        if (savedSinceReload) {
+            savedSinceReload = false;
+            onSaved.run();
+        }
+    }
+
+    private void updateLabels() {
+        registered.setText(committedCount < 0 ? "Event deleted" : "Registered: " + committedCount);
+        session.setText(String.format("This station: %d saved, %d waiting, %d failed   (queue: %d pending, %d batches)",
+                saved, queued, failed, queue.pending(), queue.batches()));
+    }
+}
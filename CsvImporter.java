@@ -0,0 +1,183 @@
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.*;
+import java.util.*;
+
+// bulk participant import from a name,type,event csv file, all of it or none of it: rows that
+// fail validation are skipped and listed, a database or read error rolls the whole file back
+class CsvImporter {
+    private static final int BATCH_SIZE = 500;
+    private static final int MAX_ERRORS = 50;
+
+    record Result(int imported, int rejected, List<String> errors, long millis) {
+        double rowsPerSecond() {
+            return millis == 0 ? imported : imported * 1000.0 / millis;
+        }
+    }
+
+    private final StatementCache statements;
+    private final Connection conn;
+    // lower-cased event name -> id, null value when the name is ambiguous
+    private final Map<String, Integer> eventsByName = new HashMap<>();
+    private final Set<Integer> eventIds = new HashSet<>();
+
+    private int imported;
+    private int rejected;
+    private final List<String> errors = new ArrayList<>();
+
+    CsvImporter(StatementCache statements) {
+        this.statements = statements;
+        this.conn = statements.connection();
+    }
+
+    // one transaction for the file, a single commit and fsync at the end. the writer is held for
+    // the whole import either way
+    Result importFile(Path file) throws SQLException, IOException {
+        long start = System.nanoTime();
+        loadEvents();
+
+        boolean autoCommit = conn.getAutoCommit();
+        conn.setAutoCommit(false);
+        int lineNo = 0;
+        try (BufferedReader in = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            PreparedStatement ps = statements.prepare("INSERT INTO participants VALUES(NULL,?,?,?)");
+            int batched = 0;
+            int added = 0;
+            String line;
+            while ((line = in.readLine()) != null) {
+                lineNo++;
+                if (lineNo == 1 && line.startsWith("\uFEFF")) line = line.substring(1);
+                if (line.isBlank()) continue;
+
+                List<String> fields = parse(line);
+                if (lineNo == 1 && isHeader(fields)) continue;
+
+                String error = validate(fields);
+                if (error != null) {
+                    reject(lineNo, error);
+                    continue;
+                }
+                ps.setInt(1, resolveEvent(fields.get(2)));
+                ps.setString(2, fields.get(0).trim());
+                ps.setString(3, normalizeType(fields.get(1)));
+                ps.addBatch();
+                batched++;
+
+                if (batched == BATCH_SIZE) {
+                    ps.executeBatch();
+                    added += batched;
+                    batched = 0;
+                }
+            }
+            if (batched > 0) ps.executeBatch();
+            conn.commit();
+            imported = added + batched;
+        } catch (SQLException e) {
+            conn.rollback();
+            throw new SQLException(failure(file, lineNo, e), e.getSQLState(), e.getErrorCode(), e);
+        } catch (IOException e) {
+            conn.rollback();
+            throw new IOException(failure(file, lineNo, e), e);
+        } finally {
+            conn.setAutoCommit(autoCommit);
+        }
+
+        long millis = (System.nanoTime() - start) / 1_000_000;
+        return new Result(imported, rejected, errors, millis);
+    }
+
+    // a batch fails as a whole, so the line is where reading had got to, not necessarily the bad row
+    private static String failure(Path file, int lineNo, Exception e) {
+        return file.getFileName() + " failed near line " + lineNo + ", nothing was imported: " + e.getMessage();
+    }
+
+    private void loadEvents() throws SQLException {
+        try (ResultSet rs = statements.prepare("SELECT event_id, event_name FROM events").executeQuery()) {
+            while (rs.next()) {
+                int id = rs.getInt(1);
+                eventIds.add(id);
+                String key = rs.getString(2).trim().toLowerCase();
+                eventsByName.put(key, eventsByName.containsKey(key) ? null : id);
+            }
+        }
+    }
+
+    private static boolean isHeader(List<String> fields) {
+        return fields.size() == 3 && fields.get(0).trim().equalsIgnoreCase("name")
+                && fields.get(1).trim().equalsIgnoreCase("type");
+    }
+
+    private String validate(List<String> fields) {
+        if (fields.size() != 3) return "expected 3 columns but found " + fields.size();
+        if (fields.get(0).isBlank()) return "name is empty";
+        if (normalizeType(fields.get(1)) == null) return "type must be Student or Staff";
+
+        String event = fields.get(2).trim();
+        String key = event.toLowerCase();
+        if (eventsByName.containsKey(key) && eventsByName.get(key) == null) {
+            return "event name '" + event + "' is ambiguous, use the id";
+        }
+        if (resolveEvent(event) == null) return "unknown event '" + event + "'";
+        return null;
+    }
+
+    // an event can be given by name or by id, a name wins over an id
+    private Integer resolveEvent(String event) {
+        event = event.trim();
+        Integer id = eventsByName.get(event.toLowerCase());
+        if (id != null) return id;
+        try {
+            id = Integer.valueOf(event);
+            return eventIds.contains(id) ? id : null;
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    // the canonical spelling of a participant type, null if it is not one
+    static String normalizeType(String type) {
+        type = type.trim();
+        if (type.equalsIgnoreCase("Student")) return "Student";
+        if (type.equalsIgnoreCase("Staff")) return "Staff";
+        return null;
+    }
+
+    private void reject(int lineNo, String error) {
+        rejected++;
+        if (errors.size() < MAX_ERRORS) errors.add("line " + lineNo + ": " + error);
+    }
+
+    // splits one csv line, double quotes may wrap a field and "" escapes a quote
+    static List<String> parse(String line) {
+        List<String> fields = new ArrayList<>(3);
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char ch = line.charAt(i);
+            if (quoted) {
+                if (ch == '"') {
+                    if (i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                        field.append('"');
+                        i++;
+                    } else {
+                        quoted = false;
+                    }
+                } else {
+                    field.append(ch);
+                }
+            } else if (ch == '"') {
+                quoted = true;
+            } else if (ch == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(ch);
+            }
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+}
@@ -0,0 +1,69 @@
+import java.io.IOException;
+import java.util.Map;
+
+// the report as one csv row per participant, events without participants get a row of their own
+class CsvReport implements ReportEngine.Listener {
+    private static final int CHUNK_SIZE = 16 * 1024;
+    private static final String HEADER =
+            "event_id,event_name,event_date,venue,organizer,participant_name,participant_type\n";
+
+    private final TextReport.Sink sink;
+    private final StringBuilder chunk = new StringBuilder(CHUNK_SIZE + 1024);
+    // the event columns, repeated on every row of the event
+    private String eventColumns;
+
+    CsvReport(TextReport.Sink sink) throws IOException {
+        this.sink = sink;
+        sink.append(HEADER);
+        // nothing goes back at the mark, everything after it streams
+        sink.mark();
+    }
+
+    @Override
+    public void event(ReportEngine.Event event) {
+        StringBuilder sb = new StringBuilder();
+        sb.append(event.id()).append(',');
+        field(sb, event.name()).append(',');
+        field(sb, event.date()).append(',');
+        field(sb, event.venue()).append(',');
+        field(sb, event.organizer()).append(',');
+        eventColumns = sb.toString();
+    }
+
+    @Override
+    public void participant(String name, String type) throws IOException {
+        chunk.append(eventColumns);
+        field(chunk, name).append(',');
+        field(chunk, type).append('\n');
+        if (chunk.length() >= CHUNK_SIZE) flush();
+    }
+
+    @Override
+    public void endEvent(ReportEngine.Event event, int total, Map<String, Integer> byType) throws IOException {
+        if (total == 0) chunk.append(eventColumns).append(",\n");
+        if (chunk.length() >= CHUNK_SIZE) flush();
+    }
+
+    @Override
+    public void summary(ReportEngine.Summary summary) throws IOException {
+        flush();
+    }
+
+    // quoted only when it has to be, the way CsvImporter.parse reads it back
+    private static StringBuilder field(StringBuilder sb, String value) {
+        if (value == null) return sb;
+        boolean quote = false;
+        for (int i = 0; i < value.length() && !quote; i++) {
+            char c = value.charAt(i);
+            quote = c == ',' || c == '"' || c == '\n' || c == '\r';
+        }
+        if (!quote) return sb.append(value);
+        return sb.append('"').append(value.replace("\"", "\"\"")).append('"');
+    }
+
+    private void flush() throws IOException {
+        if (chunk.length() == 0) return;
+        sink.append(chunk.toString());
+        chunk.setLength(0);
+    }
+}
@@ -0,0 +1,72 @@
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+// dashboard figures, read from the rollup tables only. their size follows the number of
+// months, venues and organizers, so loading costs the same however many participants there are
+final class Dashboard {
+    // rows in the venue and organizer rankings
+    static final int TOP = 10;
+
+    record Month(String month, int events, long participants, long students, long staff) {
+    }
+
+    record Ranked(String name, int events, long participants) {
+    }
+
+    record Data(List<Month> months, List<Ranked> venues, List<Ranked> organizers) {
+        long events() {
+            long total = 0;
+            for (Month m : months) total += m.events();
+            return total;
+        }
+
+        long participants() {
+            long total = 0;
+            for (Month m : months) total += m.participants();
+            return total;
+        }
+
+        long students() {
+            long total = 0;
+            for (Month m : months) total += m.students();
+            return total;
+        }
+
+        long staff() {
+            long total = 0;
+            for (Month m : months) total += m.staff();
+            return total;
+        }
+    }
+
+    private Dashboard() {
+    }
+
+    static Data load(StatementCache statements) throws SQLException {
+        List<Month> months = new ArrayList<>();
+        try (ResultSet rs = statements.prepare(
+                "SELECT month, events, participants, students, staff FROM rollup_month ORDER BY month").executeQuery()) {
+            while (rs.next()) {
+                months.add(new Month(rs.getString(1), rs.getInt(2), rs.getLong(3), rs.getLong(4), rs.getLong(5)));
+            }
+        }
+        return new Data(months,
+                ranked(statements, "SELECT venue, events, participants FROM rollup_venue"),
+                ranked(statements, "SELECT organizer, events, participants FROM rollup_organizer"));
+    }
+
+    private static List<Ranked> ranked(StatementCache statements, String select) throws SQLException {
+        PreparedStatement ps = statements.prepare(select + " ORDER BY participants DESC, events DESC LIMIT ?");
+        ps.setInt(1, TOP);
+        List<Ranked> rows = new ArrayList<>(TOP);
+        try (ResultSet rs = ps.executeQuery()) {
+            while (rs.next()) {
+                rows.add(new Ranked(rs.getString(1), rs.getInt(2), rs.getLong(3)));
+            }
+        }
+        return rows;
+    }
+}
@@ -0,0 +1,187 @@
+import javax.swing.*;
+import javax.swing.table.DefaultTableModel;
+import java.awt.*;
+import java.awt.event.WindowAdapter;
+import java.awt.event.WindowEvent;
+import java.util.List;
+
+// attendance trends from the rollups: headline totals, participants per month split into
+// students and staff, and the busiest venues and organizers. refreshed while open
+class DashboardDialog extends JDialog {
+    // bars in the chart, the most recent months
+    private static final int CHART_MONTHS = 24;
+    private static final Color STUDENT_COLOR = new Color(52, 101, 164);
+    private static final Color STAFF_COLOR = new Color(245, 121, 0);
+
+    private final AsyncDb db;
+    private final JLabel totals = new JLabel();
+    private final JLabel loaded = new JLabel();
+    private final MonthChart chart = new MonthChart();
+    private final DefaultTableModel months = table("Month", "Events", "Participants", "Students", "Staff");
+    private final DefaultTableModel venues = table("Venue", "Events", "Participants");
+    private final DefaultTableModel organizers = table("Organizer", "Events", "Participants");
+
+    DashboardDialog(JFrame owner, AsyncDb db) {
+        super(owner, "Dashboard", false);
+        this.db = db;
+        setSize(900, 600);
+        setLayout(new BorderLayout());
+        setLocationRelativeTo(owner);
+        setDefaultCloseOperation(DISPOSE_ON_CLOSE);
+
+        totals.setFont(totals.getFont().deriveFont(Font.BOLD, 16f));
+        totals.setBorder(BorderFactory.createEmptyBorder(8, 8, 8, 8));
+        add(totals, BorderLayout.NORTH);
+
+        JPanel trend = new JPanel(new BorderLayout());
+        trend.add(chart, BorderLayout.CENTER);
+        JScrollPane monthScroll = new JScrollPane(new JTable(months));
+        monthScroll.setPreferredSize(new Dimension(0, 160));
+        trend.add(monthScroll, BorderLayout.SOUTH);
+
+        JTabbedPane tabs = new JTabbedPane();
+        tabs.addTab("Attendance by Month", trend);
+        tabs.addTab("Top Venues", new JScrollPane(new JTable(venues)));
+        tabs.addTab("Top Organizers", new JScrollPane(new JTable(organizers)));
+        add(tabs, BorderLayout.CENTER);
+
+        JPanel south = new JPanel(new BorderLayout());
+        loaded.setBorder(BorderFactory.createEmptyBorder(6, 8, 6, 8));
+        south.add(loaded, BorderLayout.WEST);
+        JPanel buttons = new JPanel(new FlowLayout(FlowLayout.RIGHT));
+        JButton refresh = new JButton("Refresh");
+        JButton close = new JButton("Close");
+        buttons.add(refresh);
+        buttons.add(close);
+        south.add(buttons, BorderLayout.EAST);
+        add(south, BorderLayout.SOUTH);
+
+        refresh.addActionListener(e -> update());
+        close.addActionListener(e -> dispose());
+
+        Timer timer = new Timer(5000, e -> update());
+        addWindowListener(new WindowAdapter() {
+            @Override
+            public void windowClosed(WindowEvent e) {
+                timer.stop();
+            }
+        });
+        update();
+        timer.start();
+    }
+
+    private static DefaultTableModel table(String... columns) {
+        return new DefaultTableModel(columns, 0) {
+            @Override
+            public boolean isCellEditable(int row, int column) {
+                return false;
+            }
+        };
+    }
+
+    private void update() {
+        long start = System.nanoTime();
+        db.readLatest("dashboard.load", Dashboard::load).whenCompleteAsync((data, e) -> {
+            if (e != null) {
+                if (!AsyncDb.isCancellation(e)) loaded.setText("Load failed: " + AsyncDb.cause(e).getMessage());
+                return;
+            }
+            show(data);
+            loaded.setText(String.format("Loaded in %.1f ms", (System.nanoTime() - start) / 1e6));
+        }, AsyncDb.EDT);
+    }
+
+    private void show(Dashboard.Data data) {
+        long participants = data.participants();
+        totals.setText(String.format("%,d events    %,d participants    %s students    %s staff",
+                data.events(), participants, percent(data.students(), participants),
+                percent(data.staff(), participants)));
+
+        months.setRowCount(0);
+        // newest first in the table, the chart reads left to right
+        for (int i = data.months().size() - 1; i >= 0; i--) {
+            Dashboard.Month m = data.months().get(i);
+            months.addRow(new Object[]{m.month(), m.events(), m.participants(), m.students(), m.staff()});
+        }
+        fill(venues, data.venues());
+        fill(organizers, data.organizers());
+
+        List<Dashboard.Month> all = data.months();
+        chart.setMonths(all.subList(Math.max(0, all.size() - CHART_MONTHS), all.size()));
+    }
+
+    private static void fill(DefaultTableModel model, List<Dashboard.Ranked> rows) {
+        model.setRowCount(0);
+        for (Dashboard.Ranked r : rows) {
+            model.addRow(new Object[]{r.name(), r.events(), r.participants()});
+        }
+    }
+
+    private static String percent(long part, long whole) {
+        return whole == 0 ? "0%" : Math.round(part * 100.0 / whole) + "%";
+    }
+
+    // participants per month as bars, students stacked under staff
+    private static final class MonthChart extends JComponent {
+        private static final int PAD = 30;
+        private List<Dashboard.Month> months = List.of();
+
+        MonthChart() {
+            setPreferredSize(new Dimension(600, 260));
+        }
+
+        void setMonths(List<Dashboard.Month> months) {
+            this.months = List.copyOf(months);
+            repaint();
+        }
+
+        @Override
+        protected void paintComponent(Graphics g) {
+            Graphics2D g2 = (Graphics2D) g.create();
+            g2.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+            g2.setColor(getBackground() != null ? getBackground() : Color.WHITE);
+            g2.fillRect(0, 0, getWidth(), getHeight());
+            int width = getWidth() - 2 * PAD, height = getHeight() - 2 * PAD;
+            if (months.isEmpty() || width <= 0 || height <= 0) {
+                g2.dispose();
+                return;
+            }
+            long max = 1;
+            for (Dashboard.Month m : months) max = Math.max(max, m.participants());
+
+            FontMetrics fm = g2.getFontMetrics();
+            int slot = width / months.size();
+            int bar = Math.max(2, slot * 2 / 3);
+            int base = PAD + height;
+            for (int i = 0; i < months.size(); i++) {
+                Dashboard.Month m = months.get(i);
+                int x = PAD + i * slot + (slot - bar) / 2;
+                // staff from the running total, so rounding never leaves a gap between the two
+                int students = (int) (m.students() * height / max);
+                int staff = (int) ((m.students() + m.staff()) * height / max) - students;
+                g2.setColor(STUDENT_COLOR);
+                g2.fillRect(x, base - students, bar, students);
+                g2.setColor(STAFF_COLOR);
+                g2.fillRect(x, base - students - staff, bar, staff);
+                // every label when they fit, otherwise every few
+                if (slot >= fm.stringWidth("0000-00") + 4 || i % 3 == 0) {
+                    g2.setColor(Color.DARK_GRAY);
+                    String label = m.month();
+                    g2.drawString(label, PAD + i * slot + (slot - fm.stringWidth(label)) / 2, base + fm.getAscent() + 2);
+                }
+            }
+            g2.setColor(Color.GRAY);
+            g2.drawLine(PAD, base, PAD + width, base);
+            g2.drawString(String.format("%,d", max), 2, PAD - 4);
+
+            g2.setColor(STUDENT_COLOR);
+            g2.fillRect(getWidth() - 170, 8, 10, 10);
+            g2.setColor(STAFF_COLOR);
+            g2.fillRect(getWidth() - 80, 8, 10, 10);
+            g2.setColor(Color.DARK_GRAY);
+            g2.drawString("Students", getWidth() - 156, 18);
+            g2.drawString("Staff", getWidth() - 66, 18);
+            g2.dispose();
+        }
+    }
+}
@@ -0,0 +1,32 @@
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+// one database task as seen by Java Flight Recorder, see Metrics.time
+@Name("ems.DatabaseOperation")
+@Label("Database Operation")
+@Category({"Event Management", "Database"})
+@Description("A unit of work run on one of the SQLite connections")
+@StackTrace(false)
+class DbOperationEvent extends Event {
+    @Label("Operation")
+    String operation;
+
+    @Label("SQL")
+    @Description("Statements prepared by the operation, in order")
+    String sql;
+
+    @Label("Rows")
+    @Description("Rows returned or changed, -1 when the operation does not say")
+    long rows;
+
+    @Label("Writer")
+    @Description("Ran on the writer connection rather than a read-only one")
+    boolean writer;
+
+    @Label("Failed")
+    boolean failed;
+}
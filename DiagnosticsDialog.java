@@ -0,0 +1,91 @@
+import javax.swing.*;
+import javax.swing.table.DefaultTableModel;
+import java.awt.*;
+import java.awt.event.WindowAdapter;
+import java.awt.event.WindowEvent;
+
+// latency per operation, statement cache figures and the last UI stall, refreshed while open
+class DiagnosticsDialog extends JDialog {
+    private static final String[] COLUMNS = {"Operation", "Count", "p50 (ms)", "p99 (ms)", "Max (ms)"};
+
+    private final AsyncDb db;
+    private final DefaultTableModel model = new DefaultTableModel(COLUMNS, 0) {
+        @Override
+        public boolean isCellEditable(int row, int column) {
+            return false;
+        }
+    };
+    private final JLabel storage = new JLabel(" ");
+    private final JLabel cache = new JLabel();
+    private final JTextArea stall = new JTextArea(8, 80);
+
+    DiagnosticsDialog(JFrame owner, AsyncDb db) {
+        super(owner, "Diagnostics", false);
+        this.db = db;
+        setSize(800, 500);
+        setLayout(new BorderLayout());
+        setLocationRelativeTo(owner);
+        setDefaultCloseOperation(DISPOSE_ON_CLOSE);
+
+        JTable table = new JTable(model);
+        table.setRowHeight(24);
+        add(new JScrollPane(table), BorderLayout.CENTER);
+
+        stall.setEditable(false);
+        stall.setFont(new Font("Consolas", Font.PLAIN, 12));
+        storage.setBorder(BorderFactory.createEmptyBorder(6, 6, 0, 6));
+        cache.setBorder(BorderFactory.createEmptyBorder(6, 6, 6, 6));
+
+        JPanel figures = new JPanel(new GridLayout(0, 1));
+        figures.add(storage);
+        figures.add(cache);
+        JPanel south = new JPanel(new BorderLayout());
+        south.add(figures, BorderLayout.NORTH);
+        south.add(new JScrollPane(stall), BorderLayout.CENTER);
+
+        JPanel buttons = new JPanel(new FlowLayout(FlowLayout.RIGHT));
+        JButton reset = new JButton("Reset");
+        JButton close = new JButton("Close");
+        buttons.add(reset);
+        buttons.add(close);
+        south.add(buttons, BorderLayout.SOUTH);
+        add(south, BorderLayout.SOUTH);
+
+        reset.addActionListener(e -> {
+            Metrics.reset();
+            update();
+        });
+        close.addActionListener(e -> dispose());
+
+        Timer timer = new Timer(1000, e -> update());
+        addWindowListener(new WindowAdapter() {
+            @Override
+            public void windowClosed(WindowEvent e) {
+                timer.stop();
+            }
+        });
+        // the writer's pragmas are per connection, so they are read on the writer
+        db.write("diagnostics.storage", s -> StorageProfile.effective(s.connection()))
+                .whenCompleteAsync((line, e) -> storage.setText(e == null ? line : "SQLite storage: unavailable"),
+                        AsyncDb.EDT);
+        update();
+        timer.start();
+    }
+
+    private void update() {
+        model.setRowCount(0);
+        for (Metrics.Stat stat : Metrics.snapshot()) {
+            model.addRow(new Object[]{
+                    stat.operation(),
+                    stat.count(),
+                    String.format("%.2f", stat.p50Millis()),
+                    String.format("%.2f", stat.p99Millis()),
+                    String.format("%.2f", stat.maxMillis())
+            });
+        }
+        cache.setText(db.cacheStats());
+        String last = EdtWatchdog.lastStall();
+        stall.setText(last.isEmpty() ? "No UI stalls recorded." : last);
+        stall.setCaretPosition(0);
+    }
+}
@@ -0,0 +1,51 @@
+import javax.swing.*;
+import javax.swing.text.BadLocationException;
+import javax.swing.text.Document;
+import java.util.concurrent.Semaphore;
+
+// feeds report chunks into a text component's document from a worker thread
+class DocumentSink implements TextReport.Sink {
+    // chunks queued on the EDT at most, the worker waits beyond that
+    private static final int MAX_PENDING = 8;
+
+    private final Document doc;
+    private final Semaphore pending = new Semaphore(MAX_PENDING);
+    // document length as seen by the worker, all edits are appends until the summary
+    private int length;
+    private int mark;
+
+    DocumentSink(JTextArea area) {
+        this.doc = area.getDocument();
+    }
+
+    @Override
+    public void append(String text) {
+        int offset = length;
+        length += text.length();
+        insert(offset, text);
+    }
+
+    @Override
+    public void mark() {
+        mark = length;
+    }
+
+    @Override
+    public void insertAtMark(String text) {
+        length += text.length();
+        insert(mark, text);
+    }
+
+    private void insert(int offset, String text) {
+        pending.acquireUninterruptibly();
+        SwingUtilities.invokeLater(() -> {
+            try {
+                doc.insertString(offset, text, null);
+            } catch (BadLocationException e) {
+                throw new IllegalStateException(e);
+            } finally {
+                pending.release();
+            }
+        });
+    }
+}
@@ -0,0 +1,23 @@
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+// the Swing thread did not pick up a heartbeat in time, see EdtWatchdog
+@Name("ems.EdtStall")
+@Label("EDT Stall")
+@Category({"Event Management", "Swing"})
+@Description("The event dispatch thread was busy long enough to freeze the UI")
+@StackTrace(false)
+class EdtStallEvent extends Event {
+    @Label("Stall")
+    @Timespan(Timespan.MILLISECONDS)
+    long stall;
+
+    @Label("EDT Stack")
+    @Description("Stack of the event dispatch thread sampled while it was stalled")
+    String stack;
+}
@@ -0,0 +1,83 @@
+import javax.swing.*;
+
+// posts a heartbeat to the Swing thread and samples its stack when the beat is late,
+// so a frozen UI leaves a trace of what it was doing
+final class EdtWatchdog implements Runnable {
+    static final String OPERATION = "ui.stall";
+    private static final long CHECK_MILLIS = 50;
+    private static final int MAX_FRAMES = 40;
+
+    private static volatile String lastStall = "";
+
+    private final long thresholdNanos;
+    private volatile Thread edt;
+    // nanoTime of the beat waiting for the EDT, 0 when it has been picked up
+    private volatile long postedAt;
+
+    private EdtWatchdog(long thresholdMillis) {
+        this.thresholdNanos = thresholdMillis * 1_000_000;
+    }
+
+    static void start(long thresholdMillis) {
+        Thread thread = new Thread(new EdtWatchdog(thresholdMillis), "edt-watchdog");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    // stack of the most recent stall, empty if there was none
+    static String lastStall() {
+        return lastStall;
+    }
+
+    @Override
+    public void run() {
+        try {
+            while (true) {
+                long posted = System.nanoTime();
+                postedAt = posted;
+                SwingUtilities.invokeLater(() -> {
+                    edt = Thread.currentThread();
+                    postedAt = 0;
+                });
+
+                String stack = null;
+                while (postedAt != 0) {
+                    Thread.sleep(CHECK_MILLIS);
+                    // one sample per stall, taken while it is still going on
+                    if (stack == null && postedAt != 0 && System.nanoTime() - posted > thresholdNanos) {
+                        stack = sample();
+                    }
+                }
+                if (stack != null) stalled(System.nanoTime() - posted, stack);
+                Thread.sleep(CHECK_MILLIS);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private String sample() {
+        Thread thread = edt;
+        if (thread == null) return "(event dispatch thread not started)";
+        StringBuilder sb = new StringBuilder();
+        StackTraceElement[] frames = thread.getStackTrace();
+        for (int i = 0; i < Math.min(frames.length, MAX_FRAMES); i++) {
+            sb.append("    at ").append(frames[i]).append('\n');
+        }
+        if (frames.length > MAX_FRAMES) sb.append("    ...\n");
+        return sb.toString();
+    }
+
+    private void stalled(long nanos, String stack) {
+        long millis = nanos / 1_000_000;
+        Metrics.record(OPERATION, nanos);
+        lastStall = "EDT stalled for " + millis + " ms\n" + stack;
+
+        EdtStallEvent event = new EdtStallEvent();
+        if (event.shouldCommit()) {
+            event.stall = millis;
+            event.stack = stack;
+            event.commit();
+        }
+    }
+}
@@ -0,0 +1,493 @@
+import javax.swing.table.AbstractTableModel;
+import java.sql.*;
+import javax.swing.Timer;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+
+// event table model that pages rows in from the database on demand and applies
+// single-row changes in place. all state is confined to the EDT, queries run on AsyncDb
+class EventTableModel extends AbstractTableModel {
+    static final int PAGE_SIZE = 100;
+    private static final int MAX_PAGES = 20;
+    // more changed events than this in one go and a full refresh is cheaper
+    private static final int MAX_TARGETED = 50;
+
+    private static final String[] COLUMNS = {"ID", "Name", "Date", "Time", "Venue", "Organizer", "Participants"};
+    // sql sort key per column, all day events have no start time and sort first
+    private static final String[] SORT_KEYS = {"event_id", "event_name", "event_date", "IFNULL(start_time, '')",
+            "venue", "organizer", "participant_count"};
+
+    private static final String BASE_QUERY = "SELECT event_id, event_name, event_date, start_time, end_time,"
+            + " venue, organizer, participant_count FROM events";
+    // events whose own text or one of whose participants matches the search
+    private static final String SEARCH_FILTER = "event_id IN (SELECT rowid FROM events_fts WHERE events_fts MATCH ?"
+            + " UNION SELECT event_id FROM participants WHERE id IN"
+            + " (SELECT rowid FROM participants_fts WHERE participants_fts MATCH ?))";
+
+    // start and end are HH:MM, both null for an all day event
+    record EventRow(int id, String name, String date, String start, String end, String venue, String organizer,
+                    int participants) {
+        String time() {
+            return start == null ? "All day" : start + " - " + end;
+        }
+    }
+
+    // current state of a changed event, row is null once it is gone
+    private record Change(int id, EventRow row, int position) {
+    }
+
+    private record Reload(List<Change> changes, int rowCount) {
+    }
+
+    private record Poll(long lastSeq, Set<Integer> changed) {
+    }
+
+    private final AsyncDb db;
+    // failed loads, on the EDT
+    private final Consumer<Throwable> errorHandler;
+
+    private int rowCount;
+    private int sortColumn = 0;
+    private boolean ascending = true;
+    // fts5 match expression, null shows every event
+    private String search;
+
+    // most recently used pages, oldest evicted first
+    private final LinkedHashMap<Integer, List<EventRow>> pages = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Integer, List<EventRow>> eldest) {
+            if (size() <= MAX_PAGES) return false;
+            eldest.getValue().forEach(row -> positions.remove(row.id()));
+            return true;
+        }
+    };
+    // event_id -> row index of every row in a loaded page
+    private final Map<Integer, Integer> positions = new HashMap<>();
+    // last row of every page seen so far, the keyset anchor for the page after it
+    private final Map<Integer, EventRow> anchors = new HashMap<>();
+    // page loads in flight, bumping the generation discards their results
+    private final Map<Integer, CompletableFuture<List<EventRow>>> pending = new HashMap<>();
+    private int generation;
+
+    // change log position last seen by the watcher
+    private long lastSeq = -1;
+    private boolean polling;
+
+    EventTableModel(AsyncDb db, Consumer<Throwable> errorHandler) {
+        this.db = db;
+        this.errorHandler = errorHandler;
+    }
+
+    // re-read the row count, then drop all cached pages. completes once the table has the count
+    CompletableFuture<Void> refresh() {
+        String filter = search;
+        return db.readLatest("events.count", s -> count(s, filter)).whenCompleteAsync((count, e) -> {
+            if (e != null) {
+                if (!AsyncDb.isCancellation(e)) errorHandler.accept(AsyncDb.cause(e));
+                return;
+            }
+            generation++;
+            pending.values().forEach(f -> f.cancel(true));
+            pending.clear();
+            pages.clear();
+            anchors.clear();
+            positions.clear();
+            rowCount = count;
+            fireTableDataChanged();
+        }, AsyncDb.EDT).handle((count, e) -> null);
+    }
+
+    // re-reads just the given events and patches them into the table. completes once they are in
+    CompletableFuture<Void> reload(Collection<Integer> ids) {
+        if (ids.size() > MAX_TARGETED) return refresh();
+        int gen = generation;
+        int column = sortColumn;
+        String filter = search;
+        String positionSql = positionQuery();
+        return db.read("events.reload", s -> {
+            List<Change> changes = new ArrayList<>(ids.size());
+            for (int id : ids) {
+                // an event that no longer matches the search counts as gone
+                EventRow row = fetchRow(s, id, filter);
+                changes.add(new Change(id, row, row != null ? position(s, positionSql, column, row, filter) : -1));
+            }
+            return new Reload(changes, count(s, filter));
+        }).whenCompleteAsync((result, e) -> {
+            if (e != null) {
+                if (!AsyncDb.isCancellation(e)) errorHandler.accept(AsyncDb.cause(e));
+                return;
+            }
+            // a refresh or re-sort in the meantime already has these changes
+            if (gen == generation) apply(result.changes(), result.rowCount());
+        }, AsyncDb.EDT).handle((result, e) -> null);
+    }
+
+    private void apply(List<Change> changes, int count) {
+        List<Change> moved = new ArrayList<>();
+        // first page whose rows may have shifted under an event that was not on screen
+        int shifted = Integer.MAX_VALUE / PAGE_SIZE;
+        for (Change c : changes) {
+            Integer old = positions.get(c.id());
+            if (c.row() != null && old != null && old == c.position()) {
+                List<EventRow> page = pages.get(old / PAGE_SIZE);
+                page.set(old % PAGE_SIZE, c.row());
+                fireTableRowsUpdated(old, old);
+            } else if (old != null || (c.row() != null && rowCount != count)) {
+                moved.add(c);
+            } else if (c.row() != null) {
+                // was off screen and may have moved, from somewhere past the loaded pages at the
+                // top to its new place. every page between the two is off by one
+                shifted = Math.min(shifted, Math.min(firstUnloaded(), c.position() / PAGE_SIZE));
+            }
+            // a gone event that was not on screen is covered by the row count check
+        }
+
+        if (moved.size() == 1) {
+            Change c = moved.get(0);
+            Integer old = positions.get(c.id());
+            if (old != null) removeAt(old);
+            if (c.row() != null) insertAt(c.position());
+        } else if (!moved.isEmpty()) {
+            refresh();
+            return;
+        }
+        if (rowCount != count) {
+            refresh();
+            return;
+        }
+        if (shifted * PAGE_SIZE < rowCount) {
+            // the rows come back with their pages, and the anchors past them are stale too
+            dropPagesFrom(shifted);
+            fireTableRowsUpdated(shifted * PAGE_SIZE, rowCount - 1);
+        }
+    }
+
+    // pages 0 up to this one are all loaded, an event not in them sorts at or past its start
+    private int firstUnloaded() {
+        int index = 0;
+        while (pages.containsKey(index)) index++;
+        return index;
+    }
+
+    private void removeAt(int row) {
+        dropPagesFrom(row / PAGE_SIZE);
+        rowCount--;
+        fireTableRowsDeleted(row, row);
+    }
+
+    // the row itself comes back with its page
+    private void insertAt(int row) {
+        dropPagesFrom(row / PAGE_SIZE);
+        rowCount++;
+        fireTableRowsInserted(row, row);
+    }
+
+    // rows from this page on have shifted, forget them and their anchors
+    private void dropPagesFrom(int index) {
+        Iterator<Map.Entry<Integer, List<EventRow>>> it = pages.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<Integer, List<EventRow>> page = it.next();
+            if (page.getKey() >= index) {
+                page.getValue().forEach(row -> positions.remove(row.id()));
+                it.remove();
+            }
+        }
+        anchors.keySet().removeIf(i -> i >= index);
+        pending.entrySet().removeIf(load -> {
+            if (load.getKey() < index) return false;
+            load.getValue().cancel(true);
+            return true;
+        });
+    }
+
+    // polls the change log and re-reads only the events touched since, whichever connection or
+    // process committed them. rows this window already reloaded itself come back once more
+    void watchForChanges(int periodMillis) {
+        Timer timer = new Timer(periodMillis, e -> pollChanges());
+        timer.start();
+    }
+
+    private void pollChanges() {
+        if (polling) return;
+        polling = true;
+        long since = lastSeq;
+        // data_version would be cheaper but only moves for commits from other connections, and
+        // the api and the registration queue commit on this process's writer. a seq lookup on
+        // the primary key finds nothing new just as cheaply
+        db.readInBackground("events.poll", s -> {
+            Set<Integer> ids = new LinkedHashSet<>();
+            long seq = since;
+            if (since < 0) {
+                try (ResultSet rs = s.prepare("SELECT COALESCE(MAX(seq), 0) FROM event_changes").executeQuery()) {
+                    seq = rs.next() ? rs.getLong(1) : 0;
+                }
+            } else {
+                PreparedStatement ps = s.prepare("SELECT seq, event_id FROM event_changes WHERE seq > ? ORDER BY seq");
+                ps.setLong(1, since);
+                try (ResultSet rs = ps.executeQuery()) {
+                    while (rs.next()) {
+                        seq = rs.getLong(1);
+                        ids.add(rs.getInt(2));
+                    }
+                }
+            }
+            return new Poll(seq, ids);
+        }).whenCompleteAsync((poll, e) -> {
+            polling = false;
+            if (e != null) return;
+            lastSeq = poll.lastSeq();
+            if (!poll.changed().isEmpty()) reload(poll.changed());
+        }, AsyncDb.EDT);
+    }
+
+    // shows only events matching the typed words, an empty text shows everything
+    void search(String text) {
+        search = toMatchQuery(text);
+        refresh();
+    }
+
+    // every word becomes a prefix term, all of them must match
+    static String toMatchQuery(String text) {
+        StringBuilder query = new StringBuilder();
+        for (String word : text.split("[^\\p{L}\\p{N}]+")) {
+            if (word.isEmpty()) continue;
+            if (query.length() > 0) query.append(' ');
+            query.append('"').append(word).append("\"*");
+        }
+        return query.length() == 0 ? null : query.toString();
+    }
+
+    // clicking the same column again flips the direction
+    void sortBy(int column) {
+        if (column == sortColumn) {
+            ascending = !ascending;
+        } else {
+            sortColumn = column;
+            ascending = true;
+        }
+        refresh();
+    }
+
+    // null while the row's page is still loading
+    EventRow getRow(int row) {
+        List<EventRow> page = page(row / PAGE_SIZE);
+        int offset = row % PAGE_SIZE;
+        return page != null && offset < page.size() ? page.get(offset) : null;
+    }
+
+    @Override
+    public int getRowCount() {
+        return rowCount;
+    }
+
+    @Override
+    public int getColumnCount() {
+        return COLUMNS.length;
+    }
+
+    @Override
+    public String getColumnName(int column) {
+        return COLUMNS[column];
+    }
+
+    @Override
+    public Class<?> getColumnClass(int column) {
+        return column == 0 || column == 6 ? Integer.class : String.class;
+    }
+
+    @Override
+    public Object getValueAt(int row, int column) {
+        EventRow r = getRow(row);
+        if (r == null) return null;
+        return switch (column) {
+            case 0 -> r.id();
+            case 1 -> r.name();
+            case 2 -> r.date();
+            case 3 -> r.time();
+            case 4 -> r.venue();
+            case 5 -> r.organizer();
+            default -> r.participants();
+        };
+    }
+
+    private List<EventRow> page(int index) {
+        List<EventRow> page = pages.get(index);
+        if (page == null && !pending.containsKey(index)) load(index);
+        return page;
+    }
+
+    // loads the page holding the row now rather than when the table first paints it. completes
+    // once the page is in the table, or at once when it already is
+    CompletableFuture<Void> fetch(int row) {
+        int index = row / PAGE_SIZE;
+        if (pages.containsKey(index)) return CompletableFuture.completedFuture(null);
+        CompletableFuture<List<EventRow>> loading = pending.get(index);
+        return loading != null ? loading.handle((page, e) -> null) : load(index);
+    }
+
+    private CompletableFuture<Void> load(int index) {
+        String sql = pageQuery(index);
+        EventRow anchor = index > 0 ? anchors.get(index - 1) : null;
+        Object anchorKey = anchor != null ? sortValue(anchor) : null;
+        int column = sortColumn;
+        String filter = search;
+
+        int offset = index > 0 && anchor == null ? index * PAGE_SIZE : -1;
+
+        CompletableFuture<List<EventRow>> load =
+                db.read("events.page", s -> fetchPage(s, sql, filter, column, anchor, anchorKey, offset));
+        pending.put(index, load);
+        return load.whenCompleteAsync((page, e) -> {
+            // dropped by a refresh or a shifting change while in flight
+            if (pending.get(index) != load) return;
+            pending.remove(index);
+            if (e != null) {
+                if (!AsyncDb.isCancellation(e)) errorHandler.accept(AsyncDb.cause(e));
+                page = List.of();
+            }
+            pages.put(index, page);
+            for (int i = 0; i < page.size(); i++) {
+                positions.put(page.get(i).id(), index * PAGE_SIZE + i);
+            }
+            if (!page.isEmpty()) anchors.put(index, page.get(page.size() - 1));
+            int first = index * PAGE_SIZE;
+            int last = Math.min(first + PAGE_SIZE, rowCount) - 1;
+            if (last >= first) fireTableRowsUpdated(first, last);
+        }, AsyncDb.EDT).handle((page, e) -> null);
+    }
+
+    private String pageQuery(int index) {
+        boolean keyset = index > 0 && anchors.containsKey(index - 1);
+        // jumping straight to an unseen page has no anchor, fall back to an offset once
+        return pageQuery(sortColumn, ascending, search, keyset, index > 0 && !keyset);
+    }
+
+    static String pageQuery(int column, boolean ascending, String search, boolean keyset, boolean offset) {
+        String key = SORT_KEYS[column];
+        String dir = ascending ? "ASC" : "DESC";
+        String order = column == 0
+                ? " ORDER BY event_id " + dir
+                : " ORDER BY " + key + " " + dir + ", event_id " + dir;
+
+        String after = null;
+        if (keyset) {
+            // keyset: continue right after the last row of the previous page
+            String cmp = ascending ? ">" : "<";
+            after = column == 0
+                    ? "event_id " + cmp + " ?"
+                    : key + " " + cmp + " ? OR (" + key + " = ? AND event_id " + cmp + " ?)";
+        }
+        StringBuilder sql = new StringBuilder(BASE_QUERY).append(where(search, after));
+        sql.append(order).append(" LIMIT ").append(PAGE_SIZE);
+        if (offset) sql.append(" OFFSET ?");
+        return sql.toString();
+    }
+
+    // number of rows sorted before this one
+    private String positionQuery() {
+        String key = SORT_KEYS[sortColumn];
+        String cmp = ascending ? "<" : ">";
+        String before = sortColumn == 0
+                ? "event_id " + cmp + " ?"
+                : key + " " + cmp + " ? OR (" + key + " = ? AND event_id " + cmp + " ?)";
+        return "SELECT COUNT(*) FROM events" + where(search, before);
+    }
+
+    private static String where(String search, String condition) {
+        if (search == null) return condition == null ? "" : " WHERE " + condition;
+        return " WHERE " + SEARCH_FILTER + (condition == null ? "" : " AND (" + condition + ")");
+    }
+
+    // the search comes first in every query, returns the next parameter index
+    private static int bindSearch(PreparedStatement ps, String search) throws SQLException {
+        if (search == null) return 1;
+        ps.setString(1, search);
+        ps.setString(2, search);
+        return 3;
+    }
+
+    private static int position(StatementCache statements, String sql, int column, EventRow row,
+                                String search) throws SQLException {
+        PreparedStatement ps = statements.prepare(sql);
+        int i = bindSearch(ps, search);
+        if (column == 0) {
+            ps.setInt(i, row.id());
+        } else {
+            Object key = sortValue(row, column);
+            ps.setObject(i, key);
+            ps.setObject(i + 1, key);
+            ps.setInt(i + 2, row.id());
+        }
+        try (ResultSet rs = ps.executeQuery()) {
+            return rs.next() ? rs.getInt(1) : 0;
+        }
+    }
+
+    private static int count(StatementCache statements, String search) throws SQLException {
+        PreparedStatement ps = statements.prepare("SELECT COUNT(*) FROM events" + where(search, null));
+        bindSearch(ps, search);
+        try (ResultSet rs = ps.executeQuery()) {
+            return rs.next() ? rs.getInt(1) : 0;
+        }
+    }
+
+    private static EventRow fetchRow(StatementCache statements, int id, String search) throws SQLException {
+        PreparedStatement ps = statements.prepare(BASE_QUERY + where(search, "event_id = ?"));
+        ps.setInt(bindSearch(ps, search), id);
+        try (ResultSet rs = ps.executeQuery()) {
+            return rs.next() ? toRow(rs) : null;
+        }
+    }
+
+    private static EventRow toRow(ResultSet rs) throws SQLException {
+        return new EventRow(
+                rs.getInt("event_id"),
+                rs.getString("event_name"),
+                rs.getString("event_date"),
+                rs.getString("start_time"),
+                rs.getString("end_time"),
+                rs.getString("venue"),
+                rs.getString("organizer"),
+                rs.getInt("participant_count"));
+    }
+
+    static List<EventRow> fetchPage(StatementCache statements, String sql, String search, int column,
+                                    EventRow anchor, Object anchorKey, int offset) throws SQLException {
+        PreparedStatement ps = statements.prepare(sql);
+        int i = bindSearch(ps, search);
+        if (anchor != null) {
+            if (column == 0) {
+                ps.setInt(i, anchor.id());
+            } else {
+                ps.setObject(i, anchorKey);
+                ps.setObject(i + 1, anchorKey);
+                ps.setInt(i + 2, anchor.id());
+            }
+        } else if (offset >= 0) {
+            ps.setInt(i, offset);
+        }
+        List<EventRow> rows = new ArrayList<>(PAGE_SIZE);
+        try (ResultSet rs = ps.executeQuery()) {
+            while (rs.next()) {
+                rows.add(toRow(rs));
+            }
+        }
+        return rows;
+    }
+
+    private Object sortValue(EventRow r) {
+        return sortValue(r, sortColumn);
+    }
+
+    static Object sortValue(EventRow r, int column) {
+        return switch (column) {
+            case 1 -> r.name();
+            case 2 -> r.date();
+            case 3 -> r.start() == null ? "" : r.start();
+            case 4 -> r.venue();
+            case 5 -> r.organizer();
+            default -> r.participants();
+        };
+    }
+}
@@ -0,0 +1,81 @@
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+// writes the text report to a file through a buffered channel writer.
+// the details stream into a side file, finish() writes the head and summary
+// and then copies the details behind them channel to channel
+class FileReportSink implements ReportExport.FileSink {
+    private final Path target;
+    private final Path details;
+    private final FileChannel detailsChannel;
+    private final Writer detailsOut;
+
+    // the banner before the mark, a few lines
+    private final StringBuilder head = new StringBuilder();
+    private boolean marked;
+    private String summary = "";
+
+    FileReportSink(Path target) throws IOException {
+        this.target = target;
+        Path dir = target.toAbsolutePath().getParent();
+        this.details = Files.createTempFile(dir, target.getFileName().toString(), ".part");
+        this.detailsChannel = FileChannel.open(details, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        this.detailsOut = Channels.newWriter(detailsChannel, StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public void append(String text) throws IOException {
+        if (marked) {
+            detailsOut.write(text);
+        } else {
+            head.append(text);
+        }
+    }
+
+    @Override
+    public void mark() {
+        marked = true;
+    }
+
+    @Override
+    public void insertAtMark(String text) {
+        summary = text;
+    }
+
+    // puts the finished report in place of the target file
+    @Override
+    public void finish() throws IOException {
+        detailsOut.flush();
+        Path assembled = Files.createTempFile(target.toAbsolutePath().getParent(), target.getFileName().toString(), ".tmp");
+        try (FileChannel out = FileChannel.open(assembled, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            Writer headOut = Channels.newWriter(out, StandardCharsets.UTF_8);
+            headOut.write(head.toString());
+            headOut.write(summary);
+            headOut.flush();
+
+            long size = detailsChannel.size();
+            long position = 0;
+            while (position < size) {
+                position += detailsChannel.transferTo(position, size - position, out);
+            }
+            out.force(false);
+        } catch (IOException e) {
+            Files.deleteIfExists(assembled);
+            throw e;
+        }
+        Files.move(assembled, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    @Override
+    public void close() throws IOException {
+        detailsOut.close();
+        Files.deleteIfExists(details);
+    }
+}
@@ -0,0 +1,135 @@
+import java.io.IOException;
+import java.util.Map;
+
+// the report as a single self-contained html page, styles inline and no scripts
+class HtmlReport implements ReportEngine.Listener {
+    private static final int CHUNK_SIZE = 16 * 1024;
+    private static final String STYLE = """
+            body { font-family: "Segoe UI", Arial, sans-serif; margin: 2em auto; max-width: 60em; color: #222; }
+            h1 { border-bottom: 3px solid #000; padding-bottom: .3em; }
+            h2 { margin-top: 2em; border-bottom: 1px solid #999; }
+            section { margin: 1.5em 0; page-break-inside: avoid; }
+            table { border-collapse: collapse; margin: .5em 0; }
+            th, td { border: 1px solid #ccc; padding: .25em .75em; text-align: left; }
+            th { background: #eee; }
+            .meta { color: #666; }
+            """;
+
+    private final TextReport.Sink sink;
+    private final StringBuilder chunk = new StringBuilder(CHUNK_SIZE + 1024);
+    private boolean hasParticipants;
+    // where the current event's type counts go once they are known
+    private int typesAt;
+
+    HtmlReport(String user, TextReport.Sink sink) throws IOException {
+        this.sink = sink;
+        chunk.append("<!DOCTYPE html>\n<html lang=\"en\">\n<head>\n<meta charset=\"utf-8\">\n")
+                .append("<title>Event Management Report</title>\n<style>\n").append(STYLE).append("</style>\n")
+                .append("</head>\n<body>\n<h1>Limkokwing University Event Management Report</h1>\n")
+                .append("<p class=\"meta\">Generated by ");
+        escape(user).append(" on ");
+        escape(new java.util.Date().toString()).append("</p>\n");
+        flush();
+        sink.mark();
+
+        chunk.append("<h2>Detailed Event Breakdown</h2>\n");
+    }
+
+    @Override
+    public void event(ReportEngine.Event event) {
+        chunk.append("<section>\n<h3>");
+        escape(event.name()).append("</h3>\n<p class=\"meta\">");
+        escape(event.date()).append(" &middot; ");
+        escape(event.venue()).append(" &middot; organized by ");
+        escape(event.organizer()).append("</p>\n<p>Total participants: ").append(event.participants());
+        typesAt = chunk.length();
+        chunk.append("</p>\n");
+        hasParticipants = false;
+    }
+
+    @Override
+    public void participant(String name, String type) throws IOException {
+        if (!hasParticipants) {
+            chunk.append("<table>\n<tr><th>Participant</th><th>Type</th></tr>\n");
+            hasParticipants = true;
+        }
+        // the event stays in the chunk until its type counts are filled in at endEvent
+        chunk.append("<tr><td>");
+        escape(name).append("</td><td>");
+        escape(type).append("</td></tr>\n");
+    }
+
+    @Override
+    public void endEvent(ReportEngine.Event event, int total, Map<String, Integer> byType) throws IOException {
+        StringBuilder types = new StringBuilder();
+        for (Map.Entry<String, Integer> type : byType.entrySet()) {
+            escape(type.getKey(), types.append(", ")).append(": ").append(type.getValue());
+        }
+        chunk.insert(typesAt, types);
+        if (hasParticipants) {
+            chunk.append("</table>\n");
+        } else {
+            chunk.append("<p>No participants registered.</p>\n");
+        }
+        chunk.append("</section>\n");
+        if (chunk.length() >= CHUNK_SIZE) flush();
+    }
+
+    @Override
+    public void summary(ReportEngine.Summary summary) throws IOException {
+        chunk.append("</body>\n</html>\n");
+        flush();
+
+        StringBuilder s = new StringBuilder();
+        s.append("<h2>Summary Statistics</h2>\n<table>\n");
+        s.append("<tr><th>Total events</th><td>").append(summary.totalEvents()).append("</td></tr>\n");
+        s.append("<tr><th>Total participants</th><td>").append(summary.totalParticipants()).append("</td></tr>\n");
+        if (summary.totalEvents() > 0) {
+            s.append("<tr><th>Average participants per event</th><td>")
+                    .append(summary.totalParticipants() / summary.totalEvents()).append("</td></tr>\n");
+        }
+        s.append("</table>\n");
+
+        s.append("<h2>Upcoming Events</h2>\n");
+        if (summary.upcoming().isEmpty()) {
+            s.append("<p>No upcoming events found.</p>\n");
+        } else {
+            s.append("<table>\n<tr><th>Event</th><th>Date</th><th>Venue</th><th>Organizer</th></tr>\n");
+            for (ReportEngine.Event event : summary.upcoming()) {
+                escape(event.name(), s.append("<tr><td>"));
+                escape(event.date(), s.append("</td><td>"));
+                escape(event.venue(), s.append("</td><td>"));
+                escape(event.organizer(), s.append("</td><td>"));
+                s.append("</td></tr>\n");
+            }
+            s.append("</table>\n");
+        }
+        sink.insertAtMark(s.toString());
+    }
+
+    private StringBuilder escape(String text) {
+        return escape(text, chunk);
+    }
+
+    private static StringBuilder escape(String text, StringBuilder sb) {
+        if (text == null) return sb;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            switch (c) {
+                case '&' -> sb.append("&amp;");
+                case '<' -> sb.append("&lt;");
+                case '>' -> sb.append("&gt;");
+                case '"' -> sb.append("&quot;");
+                case '\'' -> sb.append("&#39;");
+                default -> sb.append(c);
+            }
+        }
+        return sb;
+    }
+
+    private void flush() throws IOException {
+        if (chunk.length() == 0) return;
+        sink.append(chunk.toString());
+        chunk.setLength(0);
+    }
+}
@@ -0,0 +1,151 @@
+import java.util.ArrayList;
+import java.util.List;
+
+// half-open intervals [start, end) in an avl tree ordered by (start, id). every node also
+// holds the largest end in its subtree, so overlap queries skip whole subtrees:
+// O(log n + k) for k matches, and inserts and removals stay O(log n)
+class IntervalTree {
+    record Interval(long start, long end, int id) {
+    }
+
+    private static final class Node {
+        final Interval interval;
+        Node left, right;
+        int height = 1;
+        long maxEnd;
+
+        Node(Interval interval) {
+            this.interval = interval;
+            this.maxEnd = interval.end();
+        }
+    }
+
+    private Node root;
+    private int size;
+
+    int size() {
+        return size;
+    }
+
+    // levels on the longest path, at most about 1.44 log2(size) while the tree stays balanced
+    int height() {
+        return height(root);
+    }
+
+    void insert(Interval interval) {
+        root = insert(root, interval);
+        size++;
+    }
+
+    // removes the interval with this start and id, false if there was none
+    boolean remove(long start, int id) {
+        int before = size;
+        root = remove(root, start, id);
+        return size < before;
+    }
+
+    // intervals overlapping [start, end), in start order
+    List<Interval> overlapping(long start, long end) {
+        List<Interval> result = new ArrayList<>();
+        collect(root, start, end, result);
+        return result;
+    }
+
+    private static void collect(Node node, long start, long end, List<Interval> result) {
+        // nothing below here ends after start
+        if (node == null || node.maxEnd <= start) return;
+        collect(node.left, start, end, result);
+        Interval i = node.interval;
+        // everything to the right starts at or after this one
+        if (i.start() >= end) return;
+        if (i.end() > start) result.add(i);
+        collect(node.right, start, end, result);
+    }
+
+    private static int compare(long start, int id, Interval i) {
+        int c = Long.compare(start, i.start());
+        return c != 0 ? c : Integer.compare(id, i.id());
+    }
+
+    private static Node insert(Node node, Interval interval) {
+        if (node == null) return new Node(interval);
+        if (compare(interval.start(), interval.id(), node.interval) < 0) {
+            node.left = insert(node.left, interval);
+        } else {
+            node.right = insert(node.right, interval);
+        }
+        return balance(node);
+    }
+
+    private Node remove(Node node, long start, int id) {
+        if (node == null) return null;
+        int c = compare(start, id, node.interval);
+        if (c < 0) {
+            node.left = remove(node.left, start, id);
+        } else if (c > 0) {
+            node.right = remove(node.right, start, id);
+        } else {
+            size--;
+            if (node.left == null) return node.right;
+            if (node.right == null) return node.left;
+            // replace with the smallest node of the right subtree
+            Node successor = node.right;
+            while (successor.left != null) successor = successor.left;
+            Node replacement = new Node(successor.interval);
+            replacement.right = removeMin(node.right);
+            replacement.left = node.left;
+            return balance(replacement);
+        }
+        return balance(node);
+    }
+
+    private static Node removeMin(Node node) {
+        if (node.left == null) return node.right;
+        node.left = removeMin(node.left);
+        return balance(node);
+    }
+
+    private static int height(Node node) {
+        return node == null ? 0 : node.height;
+    }
+
+    private static void update(Node node) {
+        node.height = 1 + Math.max(height(node.left), height(node.right));
+        long max = node.interval.end();
+        if (node.left != null) max = Math.max(max, node.left.maxEnd);
+        if (node.right != null) max = Math.max(max, node.right.maxEnd);
+        node.maxEnd = max;
+    }
+
+    private static Node balance(Node node) {
+        update(node);
+        int skew = height(node.left) - height(node.right);
+        if (skew > 1) {
+            if (height(node.left.left) < height(node.left.right)) node.left = rotateLeft(node.left);
+            return rotateRight(node);
+        }
+        if (skew < -1) {
+            if (height(node.right.right) < height(node.right.left)) node.right = rotateRight(node.right);
+            return rotateLeft(node);
+        }
+        return node;
+    }
+
+    private static Node rotateRight(Node node) {
+        Node pivot = node.left;
+        node.left = pivot.right;
+        pivot.right = node;
+        update(node);
+        update(pivot);
+        return pivot;
+    }
+
+    private static Node rotateLeft(Node node) {
+        Node pivot = node.right;
+        node.right = pivot.left;
+        pivot.left = node;
+        update(node);
+        update(pivot);
+        return pivot;
+    }
+}
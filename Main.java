@@ -1,15 +1,51 @@
 import javax.swing.*;
 import javax.swing.border.EmptyBorder;
-import javax.swing.table.DefaultTableModel;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
+import javax.swing.filechooser.FileNameExtensionFilter;
 import javax.swing.table.JTableHeader;
 import java.awt.*;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.awt.event.WindowAdapter;
+import java.awt.event.WindowEvent;
+import java.awt.font.FontRenderContext;
+import java.io.IOException;
 import java.sql.*;
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
 
 public class Main extends JFrame {
-    private Connection conn;
+    private AsyncDb db;
     private JTable eventTable;
-    private DefaultTableModel tableModel;
+    private EventTableModel tableModel;
     private String currentUser;
+    private JProgressBar progress;
+    private final VenueSchedule schedule = new VenueSchedule();
+    private final ReportCache reportCache = new ReportCache();
+    // check-ins from the check-in dialogs and the api, committed in batches
+    private RegistrationQueue registrations;
+    // the http api for other check-in stations, when -Dems.http_port asks for it
+    private ApiServer api;
+    // where the api listens, in the header while it runs
+    private JLabel apiStatus;
+    // past events moved out of the database, attached when a report asks for them
+    private final java.nio.file.Path archiveFile = Archive.fileFor(StorageProfile.DEFAULT_URL);
+    private JCheckBox includeArchive;
+
+    // overlapping bookings are refused outright instead of asking
+    private static final boolean REJECT_CONFLICTS = "reject".equalsIgnoreCase(System.getProperty("ems.conflicts"));
+
+    // event saved, or not saved because of these overlapping bookings
+    private record Saved(int id, List<String> overlaps) {
+    }
 
     // UI constants
     private static final Font TITLE_FONT = new Font("Segoe UI", Font.BOLD, 18);
@@ -17,60 +53,17 @@ public class Main extends JFrame {
     private static final Color PRIMARY_COLOR = new Color(0, 0, 0);
     private static final Color BG_COLOR = new Color(245, 247, 250);
 
-    // logo
-    ImageIcon logo = new ImageIcon("src/logo.jpeg");
-
-    public Main() {
-        initDatabase();
-        showLoginDialog();
+    // logo, decoded by the toolkit when a window first paints it rather than up front
+    private static final class Logo {
+        static final Image IMAGE = Toolkit.getDefaultToolkit().createImage("src/logo.jpeg");
     }
 
-    // database connection
-    private void initDatabase() {
-        try {
-            Class.forName("org.sqlite.JDBC");
-            conn = DriverManager.getConnection("jdbc:sqlite:university_events.db");
-            createTables();
-        } catch (Exception e) {
-            JOptionPane.showMessageDialog(this, "Database Error: " + e.getMessage());
-        }
-    }
+    // database connection, still opening while the login dialog is built and shown
+    private final CompletableFuture<AsyncDb> opening;
 
-    private void createTables() throws SQLException {
-        Statement stmt = conn.createStatement();
-
-        stmt.execute("""
-                CREATE TABLE IF NOT EXISTS users (
-                id INTEGER PRIMARY KEY AUTOINCREMENT,
-                username TEXT UNIQUE NOT NULL,
-                password TEXT NOT NULL)
-                """);
-
-        stmt.execute("""
-                CREATE TABLE IF NOT EXISTS events (
-                event_id INTEGER PRIMARY KEY AUTOINCREMENT,
-                event_name TEXT NOT NULL,
-                event_date TEXT NOT NULL,
-                venue TEXT NOT NULL,
-                organizer TEXT NOT NULL)
-                """);
-
-        stmt.execute("""
-                CREATE TABLE IF NOT EXISTS participants (
-                id INTEGER PRIMARY KEY AUTOINCREMENT,
-                event_id INTEGER,
-                name TEXT NOT NULL,
-                type TEXT NOT NULL,
-                FOREIGN KEY(event_id) REFERENCES events(event_id))
-                """);
-
-        PreparedStatement ps = conn.prepareStatement(
-                "INSERT OR IGNORE INTO users (username, password) VALUES (?, ?)");
-        ps.setString(1, "kalokoh");
-        ps.setString(2, "kalokoh");
-        ps.execute();
-
-        stmt.close();
+    public Main(CompletableFuture<AsyncDb> opening) {
+        this.opening = opening;
+        showLoginDialog();
     }
 
     private void showLoginDialog() {
@@ -79,7 +72,7 @@ public class Main extends JFrame {
         loginDialog.setLayout(new GridBagLayout());
         loginDialog.setLocationRelativeTo(null);
         loginDialog.getContentPane().setBackground(new Color(245, 247, 250));
-        loginDialog.setIconImage(logo.getImage());
+        loginDialog.setIconImage(Logo.IMAGE);
 
         GridBagConstraints gbc = new GridBagConstraints();
         gbc.insets = new Insets(10, 10, 10, 10);
@@ -93,7 +86,7 @@ public class Main extends JFrame {
 
         JButton loginBtn = new JButton("Login");
 
-        Font font = new Font("Segoe UI", Font.PLAIN, 14);
+        Font font = NORMAL_FONT;
         userLabel.setFont(font);
         passLabel.setFont(font);
         userField.setFont(font);
@@ -131,32 +124,43 @@ public class Main extends JFrame {
             String username = userField.getText();
             String password = new String(passField.getPassword());
 
-            try {
-                PreparedStatement ps = conn.prepareStatement(
-                        "SELECT * FROM users WHERE username = ? AND password = ?");
-                ps.setString(1, username);
-                ps.setString(2, password);
-                ResultSet rs = ps.executeQuery();
-
-                if (rs.next()) {
-                    currentUser = username;
-                    loginDialog.dispose();
-                    initializeMainUI();
-                    setVisible(true);
-                } else {
-                    JOptionPane.showMessageDialog(loginDialog,
-                            "Invalid username or password",
-                            "Login Failed",
-                            JOptionPane.ERROR_MESSAGE);
-                }
-            } catch (SQLException ex) {
-                JOptionPane.showMessageDialog(loginDialog, ex.getMessage());
-            }
+            loginBtn.setEnabled(false);
+            // waits for the database if the user was quicker than it
+            opening.thenCompose(d -> d.read("login", s -> checkLogin(s, username, password)))
+                    .whenCompleteAsync((ok, ex) -> {
+                        loginBtn.setEnabled(true);
+                        if (opening.isCompletedExceptionally()) {
+                            JOptionPane.showMessageDialog(loginDialog,
+                                    "Database Error: " + AsyncDb.cause(ex).getMessage());
+                        } else if (ex != null) {
+                            JOptionPane.showMessageDialog(loginDialog, AsyncDb.cause(ex).getMessage());
+                        } else if (ok) {
+                            db = opening.join();
+                            currentUser = username;
+                            loginDialog.dispose();
+                            initializeMainUI();
+                            setVisible(true);
+                        } else {
+                            JOptionPane.showMessageDialog(loginDialog,
+                                    "Invalid username or password",
+                                    "Login Failed",
+                                    JOptionPane.ERROR_MESSAGE);
+                        }
+                    }, AsyncDb.EDT);
         });
 
         loginDialog.setVisible(true);
     }
 
+    private static boolean checkLogin(StatementCache s, String username, String password) throws SQLException {
+        PreparedStatement ps = s.prepare("SELECT * FROM users WHERE username = ? AND password = ?");
+        ps.setString(1, username);
+        ps.setString(2, password);
+        try (ResultSet rs = ps.executeQuery()) {
+            return rs.next();
+        }
+    }
+
 
     // main ui
     private void initializeMainUI() {
@@ -167,7 +171,19 @@ public class Main extends JFrame {
         setLayout(new BorderLayout());
         getContentPane().setBackground(BG_COLOR);
         setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
-        setIconImage(logo.getImage());
+        setIconImage(Logo.IMAGE);
+        addWindowListener(new WindowAdapter() {
+            @Override
+            public void windowClosing(WindowEvent e) {
+                if (api != null) api.close();
+                try {
+                    // whatever is still queued is committed before the database closes
+                    registrations.close();
+                    db.close();
+                } catch (SQLException ignored) {
+                }
+            }
+        });
 
         // Header
         JPanel header = new JPanel(new BorderLayout());
@@ -182,13 +198,30 @@ public class Main extends JFrame {
         user.setForeground(Color.WHITE);
         user.setFont(NORMAL_FONT);
 
+        // shown while database work is running
+        progress = new JProgressBar();
+        progress.setIndeterminate(true);
+        progress.setPreferredSize(new Dimension(120, 14));
+        progress.setVisible(false);
+        db.setBusyListener(busy -> progress.setVisible(busy));
+
+        apiStatus = new JLabel();
+        apiStatus.setForeground(Color.WHITE);
+        apiStatus.setFont(NORMAL_FONT);
+        apiStatus.setVisible(false);
+
+        JPanel status = new JPanel(new FlowLayout(FlowLayout.RIGHT, 10, 0));
+        status.setOpaque(false);
+        status.add(progress);
+        status.add(apiStatus);
+        status.add(user);
+
         header.add(title, BorderLayout.WEST);
-        header.add(user, BorderLayout.EAST);
+        header.add(status, BorderLayout.EAST);
         add(header, BorderLayout.NORTH);
 
         // Table
-        String[] cols = {"ID", "Name", "Date", "Venue", "Organizer", "Participants"};
-        tableModel = new DefaultTableModel(cols, 0);
+        tableModel = new EventTableModel(db, e -> JOptionPane.showMessageDialog(this, e.getMessage()));
         eventTable = new JTable(tableModel);
         eventTable.setFont(NORMAL_FONT);
         eventTable.setRowHeight(28);
@@ -196,8 +229,49 @@ public class Main extends JFrame {
         JTableHeader th = eventTable.getTableHeader();
         th.setFont(NORMAL_FONT);
         th.setBackground(new Color(220, 220, 220));
+        th.addMouseListener(new MouseAdapter() {
+            @Override
+            public void mouseClicked(MouseEvent e) {
+                int col = eventTable.columnAtPoint(e.getPoint());
+                if (col != -1) tableModel.sortBy(eventTable.convertColumnIndexToModel(col));
+            }
+        });
+
+        // Search
+        JPanel searchPanel = new JPanel(new FlowLayout(FlowLayout.LEFT, 10, 8));
+        searchPanel.setBackground(BG_COLOR);
+        JLabel searchLabel = new JLabel("Search:");
+        searchLabel.setFont(NORMAL_FONT);
+        JTextField searchField = new JTextField(30);
+        searchField.setFont(NORMAL_FONT);
+        searchField.setToolTipText("Event name, venue, organizer or participant name");
+        searchPanel.add(searchLabel);
+        searchPanel.add(searchField);
+
+        // waits for a pause in typing, the model drops the query it replaces
+        Timer searchDelay = new Timer(250, e -> tableModel.search(searchField.getText()));
+        searchDelay.setRepeats(false);
+        searchField.getDocument().addDocumentListener(new DocumentListener() {
+            @Override
+            public void insertUpdate(DocumentEvent e) {
+                searchDelay.restart();
+            }
+
+            @Override
+            public void removeUpdate(DocumentEvent e) {
+                searchDelay.restart();
+            }
+
+            @Override
+            public void changedUpdate(DocumentEvent e) {
+                searchDelay.restart();
+            }
+        });
 
-        add(new JScrollPane(eventTable), BorderLayout.CENTER);
+        JPanel center = new JPanel(new BorderLayout());
+        center.add(searchPanel, BorderLayout.NORTH);
+        center.add(new JScrollPane(eventTable), BorderLayout.CENTER);
+        add(center, BorderLayout.CENTER);
 
         // Buttons
         JPanel btnPanel = new JPanel(new FlowLayout(FlowLayout.CENTER, 10, 10));
@@ -207,29 +281,81 @@ public class Main extends JFrame {
         JButton update = styledButton("Update");
         JButton delete = styledButton("Delete");
         JButton register = styledButton("Register Participant");
+        JButton checkIn = styledButton("Check-In");
+        JButton freeSlot = styledButton("Free Slot");
+        JButton importCsv = styledButton("Import CSV");
         JButton report = styledButton("Generate Report");
+        JButton export = styledButton("Export Report");
         JButton refresh = styledButton("Refresh");
+        JButton dashboard = styledButton("Dashboard");
+        JButton archive = styledButton("Archive");
+        JButton diagnostics = styledButton("Diagnostics");
 
         add.addActionListener(e -> addEvent());
         update.addActionListener(e -> updateEvent());
         delete.addActionListener(e -> deleteEvent());
         register.addActionListener(e -> registerParticipant());
+        checkIn.addActionListener(e -> openCheckIn());
+        freeSlot.addActionListener(e -> findFreeSlot());
+        importCsv.addActionListener(e -> importParticipants());
         report.addActionListener(e -> generateReport());
+        export.addActionListener(e -> exportReport());
         refresh.addActionListener(e -> loadEvents());
+        dashboard.addActionListener(e -> new DashboardDialog(this, db).setVisible(true));
+        archive.addActionListener(e -> archiveEvents());
+        includeArchive = new JCheckBox("Include archive");
+        includeArchive.setFont(NORMAL_FONT);
+        includeArchive.setOpaque(false);
+        includeArchive.setToolTipText("Generate and export reports with the archived events too");
+        diagnostics.addActionListener(e -> new DiagnosticsDialog(this, db).setVisible(true));
 
         btnPanel.add(add);
         btnPanel.add(update);
         btnPanel.add(delete);
         btnPanel.add(register);
+        btnPanel.add(checkIn);
+        btnPanel.add(freeSlot);
+        btnPanel.add(importCsv);
         btnPanel.add(report);
+        btnPanel.add(export);
+        btnPanel.add(includeArchive);
         btnPanel.add(refresh);
+        btnPanel.add(dashboard);
+        btnPanel.add(archive);
+        btnPanel.add(diagnostics);
 
         add(btnPanel, BorderLayout.SOUTH);
 
         loadEvents();
+        // changes from the api, check-in stations and other processes show up through the change log
+        tableModel.watchForChanges(2000);
+        registrations = new RegistrationQueue(db);
+        startApi();
+        // build the booking index now rather than on the first save
+        whenDone(db.read("schedule.load", s -> {
+            schedule.sync(s);
+            return null;
+        }), done -> { });
+        // old change log entries go once the window is up, not on the startup path
+        whenDone(db.writeInBackground("changes.trim", s -> {
+            Schema.trimChangeLog(s.connection());
+            return null;
+        }), done -> { });
+    }
+
+    private void startApi() {
+        Integer port = Integer.getInteger("ems.http_port");
+        if (port == null) return;
+        try {
+            api = ApiServer.start(db, registrations, port);
+            apiStatus.setText("API on port " + api.port());
+            apiStatus.setVisible(true);
+        } catch (IOException e) {
+            JOptionPane.showMessageDialog(this, "API not started: " + e.getMessage());
+        }
     }
 
-    private JButton styledButton(String text) {
+    private static JButton styledButton(String text) {
         JButton b = new JButton(text);
         b.setBackground(PRIMARY_COLOR);
         b.setForeground(Color.WHITE);
@@ -239,52 +365,39 @@ public class Main extends JFrame {
         return b;
     }
 
+    // runs the callback on the EDT once the database work is done, errors go to a dialog
+    private <T> void whenDone(CompletableFuture<T> future, Consumer<T> onSuccess) {
+        future.whenCompleteAsync((result, e) -> {
+            if (e == null) {
+                onSuccess.accept(result);
+            } else if (!AsyncDb.isCancellation(e)) {
+                JOptionPane.showMessageDialog(this, AsyncDb.cause(e).getMessage());
+            }
+        }, AsyncDb.EDT);
+    }
+
     // CRUD operation
     private void loadEvents() {
-        tableModel.setRowCount(0);
-        try {
-            ResultSet rs = conn.createStatement().executeQuery(
-                    "SELECT e.*, COUNT(p.id) AS total FROM events e " +
-                            "LEFT JOIN participants p ON e.event_id=p.event_id GROUP BY e.event_id");
-            while (rs.next()) {
-                tableModel.addRow(new Object[]{
-                        rs.getInt("event_id"),
-                        rs.getString("event_name"),
-                        rs.getString("event_date"),
-                        rs.getString("venue"),
-                        rs.getString("organizer"),
-                        rs.getInt("total")
-                });
-            }
-        } catch (SQLException e) {
-            JOptionPane.showMessageDialog(this, e.getMessage());
-        }
+        tableModel.refresh();
     }
 
     private void addEvent() {
         JTextField n = new JTextField();
         JTextField d = new JTextField();
+        JTextField st = new JTextField();
+        JTextField en = new JTextField();
         JTextField v = new JTextField();
         JTextField o = new JTextField();
 
         Object[] fields = {
-                "Name:", n, "Date (YYYY-MM-DD):", d, "Venue:", v, "Organizer:", o
+                "Name:", n, "Date (YYYY-MM-DD):", d, "Start (HH:MM, empty for all day):", st, "End (HH:MM):", en,
+                "Venue:", v, "Organizer:", o
         };
 
         if (JOptionPane.showConfirmDialog(this, fields, "Add Event",
                 JOptionPane.OK_CANCEL_OPTION) == JOptionPane.OK_OPTION) {
-            try {
-                PreparedStatement ps = conn.prepareStatement(
-                        "INSERT INTO events VALUES(NULL,?,?,?,?)");
-                ps.setString(1, n.getText());
-                ps.setString(2, d.getText());
-                ps.setString(3, v.getText());
-                ps.setString(4, o.getText());
-                ps.execute();
-                loadEvents();
-            } catch (SQLException e) {
-                JOptionPane.showMessageDialog(this, e.getMessage());
-            }
+            saveEvent(-1, n.getText(), d.getText().trim(), st.getText().trim(), en.getText().trim(),
+                    v.getText(), o.getText(), false);
         }
     }
 
@@ -292,50 +405,143 @@ public class Main extends JFrame {
         int row = eventTable.getSelectedRow();
         if (row == -1) return;
 
-        int id = (int) tableModel.getValueAt(row, 0);
+        EventTableModel.EventRow event = tableModel.getRow(row);
+        if (event == null) return;
+        int id = event.id();
 
-        JTextField n = new JTextField(tableModel.getValueAt(row,1).toString());
-        JTextField d = new JTextField(tableModel.getValueAt(row,2).toString());
-        JTextField v = new JTextField(tableModel.getValueAt(row,3).toString());
-        JTextField o = new JTextField(tableModel.getValueAt(row,4).toString());
+        JTextField n = new JTextField(event.name());
+        JTextField d = new JTextField(event.date());
+        JTextField st = new JTextField(event.start());
+        JTextField en = new JTextField(event.end());
+        JTextField v = new JTextField(event.venue());
+        JTextField o = new JTextField(event.organizer());
 
-        Object[] fields = {"Name:", n, "Date:", d, "Venue:", v, "Organizer:", o};
+        Object[] fields = {"Name:", n, "Date:", d, "Start:", st, "End:", en, "Venue:", v, "Organizer:", o};
 
         if (JOptionPane.showConfirmDialog(this, fields, "Update Event",
                 JOptionPane.OK_CANCEL_OPTION) == JOptionPane.OK_OPTION) {
-            try {
-                PreparedStatement ps = conn.prepareStatement(
-                        "UPDATE events SET event_name=?, event_date=?, venue=?, organizer=? WHERE event_id=?");
-                ps.setString(1, n.getText());
-                ps.setString(2, d.getText());
-                ps.setString(3, v.getText());
-                ps.setString(4, o.getText());
-                ps.setInt(5, id);
-                ps.execute();
-                loadEvents();
-            } catch (SQLException e) {
-                JOptionPane.showMessageDialog(this, e.getMessage());
+            saveEvent(id, n.getText(), d.getText().trim(), st.getText().trim(), en.getText().trim(),
+                    v.getText(), o.getText(), false);
+        }
+    }
+
+    // inserts (id -1) or updates an event unless it overlaps another booking at the venue.
+    // overlaps are shown and can be saved anyway, unless -Dems.conflicts=reject
+    private void saveEvent(int id, String name, String date, String start, String end, String venue,
+                           String organizer, boolean allowOverlap) {
+        String invalid = VenueSchedule.validate(date, start, end);
+        if (invalid != null) {
+            JOptionPane.showMessageDialog(this, invalid);
+            return;
+        }
+        String from = start.isEmpty() ? null : start, to = end.isEmpty() ? null : end;
+        whenDone(db.write(id < 0 ? "event.add" : "event.update", s -> {
+            schedule.sync(s);
+            if (!allowOverlap) {
+                List<Integer> overlaps = schedule.conflicts(venue, date, from, to, id);
+                if (!overlaps.isEmpty()) return new Saved(id, VenueSchedule.describe(s, overlaps));
+            }
+            PreparedStatement ps = s.prepare(id < 0
+                    ? "INSERT INTO events (event_name, event_date, start_time, end_time, venue, organizer)"
+                    + " VALUES(?,?,?,?,?,?)"
+                    : "UPDATE events SET event_name=?, event_date=?, start_time=?, end_time=?, venue=?, organizer=?"
+                    + " WHERE event_id=?");
+            ps.setString(1, name);
+            ps.setString(2, date);
+            ps.setString(3, from);
+            ps.setString(4, to);
+            ps.setString(5, venue);
+            ps.setString(6, organizer);
+            if (id >= 0) ps.setInt(7, id);
+            ps.executeUpdate();
+            int saved = id;
+            if (id < 0) {
+                try (ResultSet rs = s.prepare("SELECT last_insert_rowid()").executeQuery()) {
+                    saved = rs.next() ? rs.getInt(1) : -1;
+                }
+            }
+            schedule.sync(s);
+            return new Saved(saved, List.of());
+        }), saved -> {
+            if (saved.overlaps().isEmpty()) {
+                tableModel.reload(List.of(saved.id()));
+                return;
             }
+            String msg = venue + " is already booked then:\n  " + String.join("\n  ", saved.overlaps());
+            if (REJECT_CONFLICTS) {
+                JOptionPane.showMessageDialog(this, msg, "Scheduling Conflict", JOptionPane.ERROR_MESSAGE);
+            } else if (JOptionPane.showConfirmDialog(this, msg + "\n\nSave anyway?", "Scheduling Conflict",
+                    JOptionPane.YES_NO_OPTION, JOptionPane.WARNING_MESSAGE) == JOptionPane.YES_OPTION) {
+                saveEvent(id, name, date, start, end, venue, organizer, true);
+            }
+        });
+    }
+
+    private void findFreeSlot() {
+        JTextField v = new JTextField();
+        JTextField from = new JTextField(LocalDate.now().toString());
+        JTextField to = new JTextField(LocalDate.now().plusMonths(1).toString());
+        JTextField minutes = new JTextField("60");
+
+        Object[] fields = {"Venue:", v, "From (YYYY-MM-DD):", from, "To (YYYY-MM-DD):", to, "Minutes:", minutes};
+        if (JOptionPane.showConfirmDialog(this, fields, "Find Free Slot",
+                JOptionPane.OK_CANCEL_OPTION) != JOptionPane.OK_OPTION) return;
+
+        String venue = v.getText();
+        LocalDate first, last;
+        int length;
+        try {
+            first = LocalDate.parse(from.getText().trim());
+            last = LocalDate.parse(to.getText().trim());
+            length = Integer.parseInt(minutes.getText().trim());
+        } catch (DateTimeException | NumberFormatException e) {
+            JOptionPane.showMessageDialog(this, "Dates must be YYYY-MM-DD and minutes a number");
+            return;
         }
+        whenDone(db.read("venue.free_slot", s -> {
+            schedule.sync(s);
+            return Optional.ofNullable(schedule.freeSlot(venue, first, last, length));
+        }), slot -> JOptionPane.showMessageDialog(this, slot
+                .map(f -> venue + " is free on " + f.start().toLocalDate() + " from " + f.start().toLocalTime()
+                        + " to " + f.end().toLocalTime())
+                .orElse("No free " + length + " minute slot at " + venue + " between "
+                        + VenueSchedule.OPENS + " and " + VenueSchedule.CLOSES + " in that range")));
     }
 
     private void deleteEvent() {
         int row = eventTable.getSelectedRow();
         if (row == -1) return;
 
-        int id = (int) tableModel.getValueAt(row, 0);
-        try {
-            conn.prepareStatement("DELETE FROM participants WHERE event_id="+id).execute();
-            conn.prepareStatement("DELETE FROM events WHERE event_id="+id).execute();
-            loadEvents();
-        } catch (SQLException e) {
-            JOptionPane.showMessageDialog(this, e.getMessage());
-        }
+        EventTableModel.EventRow event = tableModel.getRow(row);
+        if (event == null) return;
+        int id = event.id();
+        whenDone(db.write("event.delete", s -> {
+            Connection c = s.connection();
+            c.setAutoCommit(false);
+            try {
+                PreparedStatement ps = s.prepare("DELETE FROM participants WHERE event_id=?");
+                ps.setInt(1, id);
+                ps.executeUpdate();
+
+                ps = s.prepare("DELETE FROM events WHERE event_id=?");
+                ps.setInt(1, id);
+                int deleted = ps.executeUpdate();
+                c.commit();
+                return deleted;
+            } catch (SQLException e) {
+                c.rollback();
+                throw e;
+            } finally {
+                c.setAutoCommit(true);
+            }
+        }), done -> tableModel.reload(List.of(id)));
     }
 
     private void registerParticipant() {
         int row = eventTable.getSelectedRow();
         if (row == -1) return;
+        EventTableModel.EventRow event = tableModel.getRow(row);
+        if (event == null) return;
 
         JTextField name = new JTextField();
         JComboBox<String> type = new JComboBox<>(new String[]{"Student","Staff"});
@@ -344,18 +550,81 @@ public class Main extends JFrame {
 
         if (JOptionPane.showConfirmDialog(this, fields, "Register Participant",
                 JOptionPane.OK_CANCEL_OPTION) == JOptionPane.OK_OPTION) {
-            try {
-                PreparedStatement ps = conn.prepareStatement(
-                        "INSERT INTO participants VALUES(NULL,?,?,?)");
-                ps.setInt(1, (int)tableModel.getValueAt(row,0));
-                ps.setString(2, name.getText());
-                ps.setString(3, type.getSelectedItem().toString());
-                ps.execute();
-                loadEvents();
-            } catch (SQLException e) {
-                JOptionPane.showMessageDialog(this, e.getMessage());
-            }
+            String participant = name.getText(), participantType = type.getSelectedItem().toString();
+            whenDone(db.write("participant.register", s -> {
+                PreparedStatement ps = s.prepare("INSERT INTO participants VALUES(NULL,?,?,?)");
+                ps.setInt(1, event.id());
+                ps.setString(2, participant);
+                ps.setString(3, participantType);
+                return ps.executeUpdate();
+            }), done -> tableModel.reload(List.of(event.id())));
+        }
+    }
+
+    private void openCheckIn() {
+        int row = eventTable.getSelectedRow();
+        if (row == -1) return;
+        EventTableModel.EventRow event = tableModel.getRow(row);
+        if (event == null) return;
+        new CheckInDialog(this, db, registrations, event, () -> tableModel.reload(List.of(event.id())))
+                .setVisible(true);
+    }
+
+    // reports read the archive when asked to and once there is one
+    private boolean withArchive() {
+        return includeArchive.isSelected() && Archive.exists(archiveFile);
+    }
+
+    // moves events dated before the cut-off, with their participants, to the archive file
+    private void archiveEvents() {
+        JTextField cutoff = new JTextField(Archive.defaultCutoff());
+        Object[] fields = {"Move events dated before (YYYY-MM-DD):", cutoff,
+                "to " + archiveFile.toAbsolutePath() + ".", "Reports show them with Include archive."};
+        if (JOptionPane.showConfirmDialog(this, fields, "Archive Past Events",
+                JOptionPane.OK_CANCEL_OPTION) != JOptionPane.OK_OPTION) return;
+
+        String date = cutoff.getText().trim();
+        try {
+            LocalDate.parse(date);
+        } catch (DateTimeException e) {
+            JOptionPane.showMessageDialog(this, "Date must be YYYY-MM-DD");
+            return;
         }
+        archiveBatch(date, new Archive.Moved(0, 0), System.nanoTime());
+    }
+
+    // one write per batch, so saves and check-ins get the writer in between
+    private void archiveBatch(String cutoff, Archive.Moved total, long start) {
+        whenDone(db.write("events.archive", s -> Archive.moveBatch(s, archiveFile, cutoff)), moved -> {
+            if (moved.events() > 0) {
+                archiveBatch(cutoff, total.plus(moved), start);
+                return;
+            }
+            loadEvents();
+            JOptionPane.showMessageDialog(this, String.format(
+                    "Archived %,d events and %,d participants dated before %s in %.1f s",
+                    total.events(), total.participants(), cutoff, (System.nanoTime() - start) / 1e9));
+        });
+    }
+
+    private void importParticipants() {
+        JFileChooser chooser = new JFileChooser();
+        chooser.setDialogTitle("Import Participants (name, type, event)");
+        if (chooser.showOpenDialog(this) != JFileChooser.APPROVE_OPTION) return;
+
+        java.nio.file.Path file = chooser.getSelectedFile().toPath();
+        whenDone(db.write("participants.import", s -> new CsvImporter(s).importFile(file)), result -> {
+            StringBuilder msg = new StringBuilder();
+            msg.append("Imported ").append(result.imported()).append(" participants in ")
+                    .append(String.format("%.1f s (%.0f rows/s)", result.millis() / 1000.0, result.rowsPerSecond()))
+                    .append("\nRejected rows: ").append(result.rejected());
+            for (String error : result.errors()) {
+                msg.append("\n  ").append(error);
+            }
+            if (result.rejected() > result.errors().size()) msg.append("\n  ...");
+            JOptionPane.showMessageDialog(this, msg.toString(), "Import CSV", JOptionPane.INFORMATION_MESSAGE);
+            loadEvents();
+        });
     }
 
     private void generateReport() {
@@ -382,116 +651,28 @@ public class Main extends JFrame {
 
         dialog.add(bottomPanel, BorderLayout.SOUTH);
 
-        StringBuilder report = new StringBuilder();
-
-        report.append("====================================================\n");
-        report.append("   LIMKOKWING UNIVERSITY EVENT MANAGEMENT REPORT\n");
-        report.append("====================================================\n");
-        report.append("Generated By : ").append(currentUser).append("\n");
-        report.append("Generated On : ").append(new java.util.Date()).append("\n\n");
-
-        try {
-            // Summary
-            ResultSet rs = conn.createStatement().executeQuery("SELECT COUNT(*) FROM events");
-            int totalEvents = rs.next() ? rs.getInt(1) : 0;
-
-            rs = conn.createStatement().executeQuery("SELECT COUNT(*) FROM participants");
-            int totalParticipants = rs.next() ? rs.getInt(1) : 0;
-
-            report.append("SUMMARY STATISTICS\n");
-            report.append("----------------------------------------------------\n");
-            report.append("Total Events        : ").append(totalEvents).append("\n");
-            report.append("Total Participants : ").append(totalParticipants).append("\n");
-
-            if (totalEvents > 0) {
-                report.append("Average Participants/Event : ")
-                        .append(totalParticipants / totalEvents).append("\n");
-            }
-            report.append("\n");
-
-            // Upcoming Events
-            report.append("UPCOMING EVENTS\n");
-            report.append("----------------------------------------------------\n");
-
-            PreparedStatement ps = conn.prepareStatement(
-                    "SELECT * FROM events WHERE event_date >= date('now') ORDER BY event_date");
-            rs = ps.executeQuery();
-
-            boolean hasUpcoming = false;
-            while (rs.next()) {
-                hasUpcoming = true;
-                report.append("Event Name : ").append(rs.getString("event_name")).append("\n");
-                report.append("Date       : ").append(rs.getString("event_date")).append("\n");
-                report.append("Venue      : ").append(rs.getString("venue")).append("\n");
-                report.append("Organizer  : ").append(rs.getString("organizer")).append("\n");
-                report.append("----------------------------------------------------\n");
-            }
-
-            if (!hasUpcoming) {
-                report.append("No upcoming events found.\n");
+        // streamed straight into the text area, stops early if the dialog is closed.
+        // sections of events unchanged since the last report come from the cache
+        AtomicBoolean closed = new AtomicBoolean();
+        dialog.addWindowListener(new WindowAdapter() {
+            @Override
+            public void windowClosed(WindowEvent e) {
+                closed.set(true);
             }
-
-            report.append("\nDETAILED EVENT BREAKDOWN\n");
-            report.append("====================================================\n");
-
-            ps = conn.prepareStatement("SELECT * FROM events ORDER BY event_date");
-            rs = ps.executeQuery();
-
-            while (rs.next()) {
-                int eventId = rs.getInt("event_id");
-
-                report.append("\nEvent: ").append(rs.getString("event_name")).append("\n");
-                report.append("Date : ").append(rs.getString("event_date")).append("\n");
-                report.append("Venue: ").append(rs.getString("venue")).append("\n");
-                report.append("Organizer: ").append(rs.getString("organizer")).append("\n");
-
-                PreparedStatement psCount = conn.prepareStatement(
-                        "SELECT COUNT(*) FROM participants WHERE event_id=?");
-                psCount.setInt(1, eventId);
-                ResultSet countRs = psCount.executeQuery();
-                int total = countRs.next() ? countRs.getInt(1) : 0;
-
-                report.append("Total Participants: ").append(total).append("\n");
-
-                PreparedStatement psType = conn.prepareStatement(
-                        "SELECT type, COUNT(*) total FROM participants WHERE event_id=? GROUP BY type");
-                psType.setInt(1, eventId);
-                ResultSet typeRs = psType.executeQuery();
-
-                while (typeRs.next()) {
-                    report.append("  - ")
-                            .append(typeRs.getString("type"))
-                            .append(": ")
-                            .append(typeRs.getInt("total"))
-                            .append("\n");
-                }
-
-                PreparedStatement psNames = conn.prepareStatement(
-                        "SELECT name, type FROM participants WHERE event_id=? ORDER BY name");
-                psNames.setInt(1, eventId);
-                ResultSet nameRs = psNames.executeQuery();
-
-                if (total > 0) {
-                    report.append("Participant List:\n");
-                    while (nameRs.next()) {
-                        report.append("   • ")
-                                .append(nameRs.getString("name"))
-                                .append(" (")
-                                .append(nameRs.getString("type"))
-                                .append(")\n");
+        });
+        String user = currentUser;
+        // the cache holds hot events only, a report with the archive is rendered in full
+        SqlTask<ReportEngine.Summary> render = withArchive()
+                ? s -> Archive.withArchive(s, archiveFile, a -> ReportEngine.run(a,
+                        new TextReport(user, new DocumentSink(reportArea)), closed::get, true))
+                : s -> reportCache.render(s, user, new DocumentSink(reportArea), closed::get);
+        db.read("report", render)
+                .whenCompleteAsync((done, e) -> {
+                    if (e != null) {
+                        reportArea.append("\nError generating report:\n" + AsyncDb.cause(e).getMessage());
                     }
-                } else {
-                    report.append("No participants registered.\n");
-                }
-
-                report.append("----------------------------------------------------\n");
-            }
-
-            reportArea.setText(report.toString());
-
-        } catch (SQLException e) {
-            reportArea.setText("Error generating report:\n" + e.getMessage());
-        }
+                    reportArea.setCaretPosition(0);
+                }, AsyncDb.EDT);
 
         // print feature
         printBtn.addActionListener(e -> {
@@ -510,9 +691,134 @@ public class Main extends JFrame {
         dialog.setVisible(true);
     }
 
+    // streams the report into a csv, html, pdf or text file with progress and cancel
+    private void exportReport() {
+        JFileChooser chooser = new JFileChooser();
+        chooser.setDialogTitle("Export Report");
+        chooser.setAcceptAllFileFilterUsed(false);
+        chooser.addChoosableFileFilter(new FileNameExtensionFilter("PDF document (*.pdf)", "pdf"));
+        chooser.addChoosableFileFilter(new FileNameExtensionFilter("Web page (*.html)", "html", "htm"));
+        chooser.addChoosableFileFilter(new FileNameExtensionFilter("Spreadsheet (*.csv)", "csv"));
+        chooser.addChoosableFileFilter(new FileNameExtensionFilter("Plain text (*.txt)", "txt"));
+        if (chooser.showSaveDialog(this) != JFileChooser.APPROVE_OPTION) return;
+
+        java.nio.file.Path chosen = chooser.getSelectedFile().toPath();
+        String[] extensions = ((FileNameExtensionFilter) chooser.getFileFilter()).getExtensions();
+        String name = chosen.getFileName().toString().toLowerCase();
+        boolean hasExtension = false;
+        for (String ext : extensions) hasExtension |= name.endsWith("." + ext);
+        java.nio.file.Path file = hasExtension
+                ? chosen
+                : chosen.resolveSibling(chosen.getFileName() + "." + extensions[0]);
+
+        ProgressMonitor monitor = new ProgressMonitor(this, "Exporting report to " + file.getFileName(), "", 0, 100);
+        AtomicLong total = new AtomicLong();
+        AtomicLong done = new AtomicLong();
+        AtomicBoolean cancelled = new AtomicBoolean();
+        // the monitor belongs to the EDT, the export only touches the counters
+        Timer poll = new Timer(200, e -> {
+            if (monitor.isCanceled()) cancelled.set(true);
+            long max = total.get();
+            if (max == 0) return;
+            int scale = max > Integer.MAX_VALUE ? (int) (max / Integer.MAX_VALUE + 1) : 1;
+            monitor.setMaximum((int) (max / scale));
+            monitor.setProgress((int) (Math.min(done.get(), max) / scale));
+            monitor.setNote(String.format("%,d of %,d rows", done.get(), max));
+        });
+        poll.start();
+
+        long start = System.nanoTime();
+        String user = currentUser;
+        SqlTask<ReportEngine.Summary> export = s -> {
+            total.set(ReportExport.size(s));
+            return ReportExport.run(s, file, user, cancelled::get, done);
+        };
+        if (withArchive()) {
+            export = s -> Archive.withArchive(s, archiveFile, a -> {
+                total.set(ReportExport.size(a, true));
+                return ReportExport.run(a, file, user, cancelled::get, done, true);
+            });
+        }
+        db.read("report.export", export).whenCompleteAsync((summary, e) -> {
+            poll.stop();
+            monitor.close();
+            if (e != null) {
+                JOptionPane.showMessageDialog(this, "Export failed: " + AsyncDb.cause(e).getMessage());
+            } else if (summary == null) {
+                JOptionPane.showMessageDialog(this, "Export cancelled, nothing was written.");
+            } else {
+                JOptionPane.showMessageDialog(this, String.format(
+                        "Exported %,d events and %,d participants to %s in %.1f s",
+                        summary.totalEvents(), summary.totalParticipants(), file, (System.nanoTime() - start) / 1e9));
+            }
+        }, AsyncDb.EDT);
+    }
+
 
 // run the program
-    public static void main(String[] args) {
-        SwingUtilities.invokeLater(Main::new);
+    public static void main(String[] args) throws Exception {
+        if (args.length > 0 && args[0].equals("--cds-training")) {
+            cdsTraining();
+            return;
+        }
+        // anything holding the EDT longer than this is recorded as a stall, -Dems.stall_millis to change
+        EdtWatchdog.start(Long.getLong("ems.stall_millis", 250));
+        ApiServer.disableNagle();
+        // the driver, schema check and connections come up while Swing builds the login dialog
+        CompletableFuture<AsyncDb> db = AsyncDb.openAsync(StorageProfile.DEFAULT_URL,
+                StorageProfile.fromSystemProperties());
+        warmFonts();
+        SwingUtilities.invokeLater(() -> new Main(db));
+    }
+
+    // resolving a font the first time reads the font files, done off the EDT it overlaps the rest
+    private static void warmFonts() {
+        Thread.ofVirtual().name("font-warmup").start(() -> {
+            FontRenderContext frc = new FontRenderContext(null, true, true);
+            TITLE_FONT.getStringBounds("Limkokwing", frc);
+            NORMAL_FONT.getStringBounds("Username:", frc);
+        });
+    }
+
+    // class loading run for the CDS archive made by the build: the startup path of the
+    // application against a scratch database, without windows so it runs headless. every
+    // step is waited for, so nothing is still loading classes when the archive is dumped
+    private static void cdsTraining() throws Exception {
+        java.nio.file.Path file = java.nio.file.Files.createTempFile("ems-cds", ".db");
+        try (AsyncDb db = AsyncDb.openAsync("jdbc:sqlite:" + file, StorageProfile.fromSystemProperties()).join()) {
+            warmFonts();
+            db.read("login", s -> checkLogin(s, "", "")).join();
+            // one event so the first page has a row to load
+            db.write("event.add", s -> s.prepare("INSERT INTO events (event_name, event_date, start_time, end_time,"
+                    + " venue, organizer) VALUES ('Training', '2000-01-01', '09:00', '10:00', 'Hall', 'CDS')")
+                    .executeUpdate()).join();
+            VenueSchedule schedule = new VenueSchedule();
+            db.read("schedule.load", s -> {
+                schedule.sync(s);
+                return null;
+            }).join();
+
+            // a failed load fails the training run, and with it the build
+            AtomicReference<Throwable> failed = new AtomicReference<>();
+            EventTableModel model = new EventTableModel(db, failed::set);
+            SwingUtilities.invokeAndWait(() -> {
+                JPanel form = new JPanel(new GridBagLayout());
+                form.add(new JLabel("Username:"), new GridBagConstraints());
+                form.add(new JTextField(15));
+                form.add(new JPasswordField(15));
+                form.add(styledButton("Login"));
+                JTable table = new JTable(model);
+                table.getTableHeader().setFont(NORMAL_FONT);
+                form.add(new JScrollPane(table));
+                form.add(new JProgressBar());
+                form.doLayout();
+            });
+            // the model belongs to the EDT, its loads finish there too
+            CompletableFuture.supplyAsync(model::refresh, AsyncDb.EDT).thenCompose(done -> done).join();
+            CompletableFuture.supplyAsync(() -> model.fetch(0), AsyncDb.EDT).thenCompose(done -> done).join();
+            if (failed.get() != null) throw new IllegalStateException("training load failed", failed.get());
+        } finally {
+            java.nio.file.Files.deleteIfExists(file);
+        }
     }
 }
@@ -0,0 +1,128 @@
+import java.io.IOException;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+
+// latency per named operation for the diagnostics dialog.
+// each operation keeps a log scale histogram, recording is two atomic updates
+final class Metrics {
+    record Stat(String operation, long count, double p50Millis, double p99Millis, double maxMillis) {
+    }
+
+    private static final Map<String, Histogram> OPERATIONS = new ConcurrentHashMap<>();
+
+    private Metrics() {
+    }
+
+    // runs task on statements, timing it and emitting a DbOperationEvent when JFR is recording
+    static <T> T time(String operation, boolean writer, StatementCache statements, SqlTask<T> task)
+            throws SQLException, IOException {
+        DbOperationEvent event = new DbOperationEvent();
+        event.begin();
+        statements.beginTrace();
+        long start = System.nanoTime();
+        T result = null;
+        boolean failed = true;
+        try {
+            result = task.run(statements);
+            failed = false;
+            return result;
+        } finally {
+            record(operation, System.nanoTime() - start);
+            String sql = statements.endTrace();
+            event.end();
+            if (event.shouldCommit()) {
+                event.operation = operation;
+                event.sql = sql;
+                event.rows = rows(result);
+                event.writer = writer;
+                event.failed = failed;
+                event.commit();
+            }
+        }
+    }
+
+    static void record(String operation, long nanos) {
+        OPERATIONS.computeIfAbsent(operation, k -> new Histogram()).record(nanos);
+    }
+
+    // current figures sorted by operation name
+    static List<Stat> snapshot() {
+        List<Stat> stats = new ArrayList<>();
+        OPERATIONS.forEach((operation, h) -> stats.add(h.stat(operation)));
+        stats.sort((a, b) -> a.operation().compareTo(b.operation()));
+        return stats;
+    }
+
+    static void reset() {
+        OPERATIONS.clear();
+    }
+
+    // best effort row count from what a task returned
+    private static long rows(Object result) {
+        if (result instanceof Collection<?> c) return c.size();
+        if (result instanceof Number n) return n.longValue();
+        if (result instanceof CsvImporter.Result r) return r.imported() + r.rejected();
+        if (result instanceof ReportEngine.Summary s) return s.totalParticipants();
+        return -1;
+    }
+
+    // microsecond buckets, four per power of two, so a percentile is off by at most a quarter
+    private static final class Histogram {
+        private static final int BUCKETS = 160;
+
+        private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+        private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+        void record(long nanos) {
+            long micros = Math.max(0, nanos / 1000);
+            counts.incrementAndGet(Math.min(BUCKETS - 1, bucket(micros)));
+            max.accumulate(micros);
+        }
+
+        Stat stat(String operation) {
+            long[] snapshot = new long[BUCKETS];
+            long count = 0;
+            for (int i = 0; i < BUCKETS; i++) {
+                snapshot[i] = counts.get(i);
+                count += snapshot[i];
+            }
+            long maxMicros = max.get();
+            return new Stat(operation, count,
+                    percentile(snapshot, count, 0.50, maxMicros) / 1000.0,
+                    percentile(snapshot, count, 0.99, maxMicros) / 1000.0,
+                    maxMicros / 1000.0);
+        }
+
+        private static long percentile(long[] snapshot, long count, double p, long maxMicros) {
+            if (count == 0) return 0;
+            long rank = (long) Math.ceil(p * count);
+            long seen = 0;
+            for (int i = 0; i < BUCKETS; i++) {
+                seen += snapshot[i];
+                if (seen >= rank) return Math.min(upperBound(i), maxMicros);
+            }
+            return maxMicros;
+        }
+
+        // values below 8 get a bucket each, above that the leading bit picks the group
+        // and the next two bits the bucket inside it
+        private static int bucket(long micros) {
+            if (micros < 8) return (int) micros;
+            int exponent = 63 - Long.numberOfLeadingZeros(micros);
+            return 4 * (exponent - 1) + (int) ((micros >> (exponent - 2)) & 3);
+        }
+
+        private static long upperBound(int bucket) {
+            if (bucket < 8) return bucket;
+            int exponent = bucket / 4 + 1;
+            long width = 1L << (exponent - 2);
+            return (4 + bucket % 4) * width + width - 1;
+        }
+    }
+}
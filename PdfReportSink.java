@@ -0,0 +1,222 @@
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.DeflaterOutputStream;
+
+// lays the text report out on A4 pages of a minimal pdf, written by hand in Courier so the
+// report's columns line up. every full page is compressed and written out at once,
+// the summary pages come last in the file and first in the page tree
+class PdfReportSink implements ReportExport.FileSink {
+    private static final int PAGE_WIDTH = 595;
+    private static final int PAGE_HEIGHT = 842;
+    private static final int MARGIN = 50;
+    private static final int FONT_SIZE = 10;
+    private static final int LEADING = 13;
+    private static final int LINES_PER_PAGE = (PAGE_HEIGHT - 2 * MARGIN) / LEADING;
+    // Courier glyphs are 0.6 em wide
+    private static final int CHARS_PER_LINE = (PAGE_WIDTH - 2 * MARGIN) * 10 / (6 * FONT_SIZE);
+
+    // written last, numbered first so every page can point at them
+    private static final int CATALOG = 1;
+    private static final int PAGES = 2;
+    private static final int FONT = 3;
+
+    private final Path target;
+    private final Path part;
+    private final OutputStream out;
+    private long written;
+    private boolean finished;
+
+    // byte offset of every object by number, for the cross-reference table
+    private long[] offsets = new long[64];
+    private int objects = FONT;
+
+    private final List<Integer> detailPages = new ArrayList<>();
+    private final List<String> lines = new ArrayList<>(LINES_PER_PAGE);
+    // text after the last newline seen
+    private final StringBuilder partial = new StringBuilder();
+
+    // the banner before the mark, a few lines
+    private final StringBuilder head = new StringBuilder();
+    private boolean marked;
+    private String summary = "";
+
+    PdfReportSink(Path target) throws IOException {
+        this.target = target;
+        Path dir = target.toAbsolutePath().getParent();
+        this.part = Files.createTempFile(dir, target.getFileName().toString(), ".part");
+        FileChannel channel = FileChannel.open(part, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        this.out = new BufferedOutputStream(Channels.newOutputStream(channel), 64 * 1024);
+        // a binary comment line marks the file as binary for transfer tools
+        write("%PDF-1.4\n%âãÏÓ\n");
+    }
+
+    @Override
+    public void append(String text) throws IOException {
+        if (!marked) {
+            head.append(text);
+            return;
+        }
+        int start = 0;
+        for (int nl = text.indexOf('\n'); nl >= 0; nl = text.indexOf('\n', start)) {
+            partial.append(text, start, nl);
+            line(partial.toString(), detailPages);
+            partial.setLength(0);
+            start = nl + 1;
+        }
+        partial.append(text, start, text.length());
+    }
+
+    @Override
+    public void mark() {
+        marked = true;
+    }
+
+    @Override
+    public void insertAtMark(String text) {
+        summary = text;
+    }
+
+    @Override
+    public void finish() throws IOException {
+        if (!partial.isEmpty()) line(partial.toString(), detailPages);
+        endPage(detailPages);
+
+        List<Integer> kids = new ArrayList<>();
+        for (String line : (head + summary).split("\n", -1)) {
+            line(line, kids);
+        }
+        endPage(kids);
+        kids.addAll(detailPages);
+        // an empty document still needs a page
+        if (kids.isEmpty()) {
+            lines.add("");
+            endPage(kids);
+        }
+
+        StringBuilder tree = new StringBuilder("<< /Type /Pages /Count ").append(kids.size()).append(" /Kids [");
+        for (int page : kids) tree.append(page).append(" 0 R ");
+        tree.append("] >>");
+        object(PAGES, tree.toString());
+        object(FONT, "<< /Type /Font /Subtype /Type1 /BaseFont /Courier /Encoding /WinAnsiEncoding >>");
+        object(CATALOG, "<< /Type /Catalog /Pages " + PAGES + " 0 R >>");
+
+        long xref = written;
+        StringBuilder sb = new StringBuilder("xref\n0 ").append(objects + 1).append("\n0000000000 65535 f \n");
+        for (int i = 1; i <= objects; i++) {
+            sb.append(String.format("%010d 00000 n \n", offsets[i]));
+            if (sb.length() >= 16 * 1024) {
+                write(sb.toString());
+                sb.setLength(0);
+            }
+        }
+        sb.append("trailer\n<< /Size ").append(objects + 1).append(" /Root ").append(CATALOG).append(" 0 R >>\n")
+                .append("startxref\n").append(xref).append("\n%%EOF\n");
+        write(sb.toString());
+        out.close();
+        finished = true;
+        Files.move(part, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (finished) return;
+        out.close();
+        Files.deleteIfExists(part);
+    }
+
+    // one line of text, wrapped at the right margin
+    private void line(String text, List<Integer> pages) throws IOException {
+        do {
+            int end = Math.min(text.length(), CHARS_PER_LINE);
+            lines.add(text.substring(0, end));
+            text = text.substring(end);
+            if (lines.size() == LINES_PER_PAGE) endPage(pages);
+        } while (!text.isEmpty());
+    }
+
+    private void endPage(List<Integer> pages) throws IOException {
+        if (lines.isEmpty()) return;
+        ByteArrayOutputStream content = new ByteArrayOutputStream(8 * 1024);
+        try (DeflaterOutputStream deflated = new DeflaterOutputStream(content)) {
+            StringBuilder sb = new StringBuilder("BT /F1 ").append(FONT_SIZE).append(" Tf ").append(LEADING)
+                    .append(" TL ").append(MARGIN).append(' ').append(PAGE_HEIGHT - MARGIN - FONT_SIZE).append(" Td\n");
+            for (String line : lines) {
+                sb.append('(');
+                escape(line, sb);
+                sb.append(") Tj T*\n");
+            }
+            sb.append("ET\n");
+            deflated.write(encode(sb));
+        }
+        lines.clear();
+
+        int contents = ++objects;
+        offset(contents);
+        write(contents + " 0 obj\n<< /Length " + content.size() + " /Filter /FlateDecode >>\nstream\n");
+        content.writeTo(out);
+        written += content.size();
+        write("\nendstream\nendobj\n");
+
+        int page = ++objects;
+        object(page, "<< /Type /Page /Parent " + PAGES + " 0 R /MediaBox [0 0 " + PAGE_WIDTH + " " + PAGE_HEIGHT
+                + "] /Resources << /Font << /F1 " + FONT + " 0 R >> >> /Contents " + contents + " 0 R >>");
+        pages.add(page);
+    }
+
+    private void object(int number, String body) throws IOException {
+        offset(number);
+        write(number + " 0 obj\n" + body + "\nendobj\n");
+    }
+
+    private void offset(int number) {
+        if (number >= offsets.length) offsets = Arrays.copyOf(offsets, offsets.length * 2);
+        offsets[number] = written;
+    }
+
+    // pdf structure is plain ascii, the header comment is latin-1
+    private void write(String text) throws IOException {
+        byte[] bytes = text.getBytes(StandardCharsets.ISO_8859_1);
+        out.write(bytes);
+        written += bytes.length;
+    }
+
+    private static void escape(String line, StringBuilder sb) {
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (c == '(' || c == ')' || c == '\\') sb.append('\\');
+            sb.append(c);
+        }
+    }
+
+    // WinAnsiEncoding is latin-1 plus a few punctuation marks, anything else prints as '?'
+    private static byte[] encode(CharSequence text) {
+        byte[] bytes = new byte[text.length()];
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            bytes[i] = switch (c) {
+                case '•' -> (byte) 0x95;
+                case '–' -> (byte) 0x96;
+                case '—' -> (byte) 0x97;
+                case '‘' -> (byte) 0x91;
+                case '’' -> (byte) 0x92;
+                case '“' -> (byte) 0x93;
+                case '”' -> (byte) 0x94;
+                case '€' -> (byte) 0x80;
+                default -> c < 0x20 && c != '\n' || c > 0xff ? (byte) '?' : (byte) c;
+            };
+        }
+        return bytes;
+    }
+}
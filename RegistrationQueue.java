@@ -0,0 +1,178 @@
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+// write-behind participant registration. submit() only queues, one flusher thread takes
+// whatever has queued up and inserts it in a single transaction on the writer connection,
+// so a rush costs one commit per batch instead of one per participant. each future
+// completes once its row is committed and synced
+class RegistrationQueue implements AutoCloseable {
+    private static final int MAX_BATCH = 500;
+    // how long the first registration of a batch waits for company, -Dems.checkin_linger_millis
+    private static final long LINGER_MILLIS = Long.getLong("ems.checkin_linger_millis", 5);
+
+    private record Registration(int eventId, String name, String type, CompletableFuture<Long> saved) {
+    }
+
+    private final AsyncDb db;
+    private final LinkedBlockingQueue<Registration> queue = new LinkedBlockingQueue<>();
+    private final Thread flusher;
+    // guards closed against submit, so nothing is queued after the flusher's last look
+    private final Object lock = new Object();
+    private volatile boolean closed;
+
+    private final AtomicLong pending = new AtomicLong();
+    private final AtomicLong saved = new AtomicLong();
+    private final AtomicLong batches = new AtomicLong();
+
+    RegistrationQueue(AsyncDb db) {
+        this.db = db;
+        this.flusher = Thread.ofVirtual().name("registration-flush").start(this::run);
+    }
+
+    // completes with the participant id once it is on disk, or null if the event is gone by then
+    CompletableFuture<Long> submit(int eventId, String name, String type) {
+        CompletableFuture<Long> future = new CompletableFuture<>();
+        synchronized (lock) {
+            if (closed) {
+                future.completeExceptionally(new IllegalStateException("registration queue is closed"));
+                return future;
+            }
+            pending.incrementAndGet();
+            queue.add(new Registration(eventId, name, type, future));
+        }
+        return future;
+    }
+
+    // queued and not yet committed
+    long pending() {
+        return pending.get();
+    }
+
+    long saved() {
+        return saved.get();
+    }
+
+    long batches() {
+        return batches.get();
+    }
+
+    // stops taking registrations and waits until everything queued is committed. an interrupt
+    // stops the wait, not the flusher, which still commits what is queued
+    @Override
+    public void close() {
+        stop();
+        try {
+            flusher.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void stop() {
+        synchronized (lock) {
+            closed = true;
+        }
+    }
+
+    // once closed, no submit can add to the queue, so an empty queue stays empty
+    private boolean finished() {
+        synchronized (lock) {
+            return closed && queue.isEmpty();
+        }
+    }
+
+    private void run() {
+        List<Registration> batch = new ArrayList<>(MAX_BATCH);
+        while (!finished()) {
+            try {
+                Registration first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) continue;
+                batch.add(first);
+                // whatever queued during the last commit goes straight in, then wait a
+                // little for more unless the batch is already full
+                queue.drainTo(batch, MAX_BATCH - batch.size());
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(LINGER_MILLIS);
+                while (batch.size() < MAX_BATCH && !closed) {
+                    Registration next = queue.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+                    if (next == null) break;
+                    batch.add(next);
+                    queue.drainTo(batch, MAX_BATCH - batch.size());
+                }
+            } catch (InterruptedException e) {
+                // close() is the way to stop, finish what is queued first
+                stop();
+            }
+            if (!batch.isEmpty()) flush(batch);
+            batch.clear();
+        }
+    }
+
+    private void flush(List<Registration> batch) {
+        List<Long> ids;
+        try {
+            ids = db.writeInBackground("participants.checkin", s -> insert(s, batch)).join();
+        } catch (RuntimeException e) {
+            // a failed commit, or the database closing underneath
+            pending.addAndGet(-batch.size());
+            for (Registration r : batch) r.saved().completeExceptionally(AsyncDb.cause(e));
+            return;
+        }
+        // counters first, so whoever is acknowledged sees them include its own entry
+        pending.addAndGet(-batch.size());
+        batches.incrementAndGet();
+        for (Long id : ids) {
+            if (id != null) saved.incrementAndGet();
+        }
+        for (int i = 0; i < batch.size(); i++) {
+            batch.get(i).saved().complete(ids.get(i));
+        }
+    }
+
+    // one transaction for the batch, ids in batch order
+    private static List<Long> insert(StatementCache statements, List<Registration> batch) throws SQLException {
+        Connection conn = statements.connection();
+        boolean autoCommit = conn.getAutoCommit();
+        String synchronous;
+        try (ResultSet rs = statements.prepare("PRAGMA synchronous").executeQuery()) {
+            synchronous = rs.next() ? rs.getString(1) : "1";
+        }
+        // an acknowledged registration has to survive a power cut, so this commit syncs the
+        // wal whatever the storage profile says. one sync covers the whole batch, and the
+        // writer goes back to the profile's setting even when the batch fails
+        statements.prepare("PRAGMA synchronous = FULL").execute();
+        try {
+            conn.setAutoCommit(false);
+            try {
+                // inserts nothing, and returns no id, for an event deleted since the entry was queued
+                PreparedStatement ps = statements.prepare("INSERT INTO participants (event_id, name, type)"
+                        + " SELECT event_id, ?, ? FROM events WHERE event_id = ? RETURNING id");
+                List<Long> ids = new ArrayList<>(batch.size());
+                for (Registration r : batch) {
+                    ps.setString(1, r.name());
+                    ps.setString(2, r.type());
+                    ps.setInt(3, r.eventId());
+                    try (ResultSet rs = ps.executeQuery()) {
+                        ids.add(rs.next() ? rs.getLong(1) : null);
+                    }
+                }
+                conn.commit();
+                return ids;
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(autoCommit);
+            }
+        } finally {
+            statements.prepare("PRAGMA synchronous = " + synchronous).execute();
+        }
+    }
+}
@@ -0,0 +1,189 @@
+import java.io.IOException;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.*;
+import java.util.function.BooleanSupplier;
+
+// rendered text report sections per event, kept between report runs. the event_changes log
+// names the events written since the last run, participant writes included through the
+// counter triggers, and only those are read and rendered again. a report bigger than the
+// budget is not kept at all, every run then streams it from the cursor like an export
+class ReportCache {
+    // more changed events than this share of the cache and one pass over everything is cheaper
+    private static final int MAX_DIRTY_PERCENT = 25;
+    // rendered text kept at most, -Dems.report_cache_mb. counted at two bytes a character
+    private static final long MAX_BYTES = Long.getLong("ems.report_cache_mb", 64) * 1024 * 1024;
+
+    // report order, the same as ReportEngine's query
+    private record Key(String date, int id) implements Comparable<Key> {
+        @Override
+        public int compareTo(Key o) {
+            int c = date.compareTo(o.date);
+            return c != 0 ? c : Integer.compare(id, o.id);
+        }
+    }
+
+    private record Section(ReportEngine.Event event, int participants, String text) {
+    }
+
+    private TreeMap<Key, Section> sections = new TreeMap<>();
+    private Map<Integer, Key> keys = new HashMap<>();
+    private long totalParticipants;
+    private long bytes;
+    // change log position the sections reflect, -1 until the first full pass
+    private long lastSeq = -1;
+
+    // writes the report to sink, re-rendering only what changed. null when cancelled
+    synchronized ReportEngine.Summary render(StatementCache statements, String user, TextReport.Sink sink,
+                                             BooleanSupplier cancelled) throws SQLException, IOException {
+        TextReport report = new TextReport(user, sink);
+
+        long oldest = -1, newest = 0;
+        try (ResultSet rs = statements.prepare("SELECT MIN(seq), MAX(seq) FROM event_changes").executeQuery()) {
+            if (rs.next()) {
+                oldest = rs.getLong(1);
+                newest = rs.getLong(2);
+            }
+        }
+        // first run, or the log was trimmed past what the cache has seen
+        if (lastSeq < 0 || oldest > lastSeq + 1) return rebuild(statements, report, cancelled, newest);
+
+        if (newest > lastSeq) {
+            Set<Integer> dirty = new LinkedHashSet<>();
+            long seq = lastSeq;
+            PreparedStatement ps = statements.prepare("SELECT seq, event_id FROM event_changes WHERE seq > ?");
+            ps.setLong(1, lastSeq);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    seq = Math.max(seq, rs.getLong(1));
+                    dirty.add(rs.getInt(2));
+                }
+            }
+            if (dirty.size() * 100L > Math.max(100, sections.size() * (long) MAX_DIRTY_PERCENT)) {
+                return rebuild(statements, report, cancelled, seq);
+            }
+            for (int id : dirty) {
+                remove(id);
+                Capture capture = new Capture(sections, keys, null, Long.MAX_VALUE);
+                ReportEngine.runEvent(statements, id, capture);
+                totalParticipants += capture.participants;
+                bytes += capture.bytes;
+            }
+            lastSeq = seq;
+        }
+
+        String today = ReportEngine.today();
+        List<ReportEngine.Event> upcoming = new ArrayList<>();
+        for (Section section : sections.values()) {
+            if (cancelled.getAsBoolean()) return null;
+            report.section(section.text());
+            if (section.event().date().compareTo(today) >= 0) upcoming.add(section.event());
+        }
+        ReportEngine.Summary summary = new ReportEngine.Summary(sections.size(), (int) totalParticipants, upcoming);
+        report.summary(summary);
+        // grown past the budget, the next run starts over and finds out whether it still fits
+        if (bytes > MAX_BYTES) clear();
+        return summary;
+    }
+
+    // one pass of the full report query, streamed to the report while the cache fills
+    private ReportEngine.Summary rebuild(StatementCache statements, TextReport report, BooleanSupplier cancelled,
+                                         long seq) throws SQLException, IOException {
+        TreeMap<Key, Section> fresh = new TreeMap<>();
+        Map<Integer, Key> freshKeys = new HashMap<>();
+        // the old sections go first, so there are never two caches' worth in the heap
+        clear();
+        Capture capture = new Capture(fresh, freshKeys, report, MAX_BYTES);
+        ReportEngine.Summary summary = ReportEngine.run(statements, capture, cancelled);
+        // a cancelled or oversized pass leaves nothing cached, the next run is a full pass again
+        if (summary == null || capture.overflowed) return summary;
+        sections = fresh;
+        keys = freshKeys;
+        totalParticipants = capture.participants;
+        bytes = capture.bytes;
+        lastSeq = seq;
+        return summary;
+    }
+
+    private void clear() {
+        sections = new TreeMap<>();
+        keys = new HashMap<>();
+        totalParticipants = 0;
+        bytes = 0;
+        lastSeq = -1;
+    }
+
+    private static long size(Section section) {
+        return 2L * section.text().length();
+    }
+
+    private void remove(int id) {
+        Key key = keys.remove(id);
+        if (key == null) return;
+        Section section = sections.remove(key);
+        totalParticipants -= section.participants();
+        bytes -= size(section);
+    }
+
+    // renders each event into a section of its own, passing it on to the report when there is one.
+    // past maxBytes it stops keeping sections and only passes them on
+    private static final class Capture implements ReportEngine.Listener {
+        private final TreeMap<Key, Section> sections;
+        private final Map<Integer, Key> keys;
+        private final TextReport report;
+        private final long maxBytes;
+        private final StringBuilder text = new StringBuilder();
+        private boolean first;
+        private int typesAt;
+        long participants;
+        long bytes;
+        boolean overflowed;
+
+        Capture(TreeMap<Key, Section> sections, Map<Integer, Key> keys, TextReport report, long maxBytes) {
+            this.sections = sections;
+            this.keys = keys;
+            this.report = report;
+            this.maxBytes = maxBytes;
+        }
+
+        @Override
+        public void event(ReportEngine.Event event) {
+            text.setLength(0);
+            TextReport.header(text, event);
+            typesAt = text.length();
+            first = true;
+        }
+
+        @Override
+        public void participant(String name, String type) {
+            TextReport.participant(text, name, type, first);
+            first = false;
+        }
+
+        @Override
+        public void endEvent(ReportEngine.Event event, int total, Map<String, Integer> byType) throws IOException {
+            TextReport.types(text, typesAt, byType);
+            TextReport.footer(text, total);
+            Section section = new Section(event, total, text.toString());
+            participants += total;
+            bytes += size(section);
+            if (bytes > maxBytes && !overflowed) {
+                overflowed = true;
+                sections.clear();
+                keys.clear();
+            }
+            if (!overflowed) {
+                Key key = new Key(event.date(), event.id());
+                sections.put(key, section);
+                keys.put(event.id(), key);
+            }
+            if (report != null) report.section(section.text());
+        }
+
+        @Override
+        public void summary(ReportEngine.Summary summary) throws IOException {
+            if (report != null) report.summary(summary);
+        }
+    }
+}
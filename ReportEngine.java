@@ -0,0 +1,133 @@
+import java.io.IOException;
+import java.sql.*;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.*;
+import java.util.function.BooleanSupplier;
+
+// builds the event report from one ordered events x participants join,
+// handing rows to a listener as the cursor moves so nothing is held in memory
+class ReportEngine {
+    private static final String REPORT_QUERY = """
+            SELECT e.event_id, e.event_name, e.event_date, e.venue, e.organizer,
+                   e.participant_count, p.name, p.type
+            FROM events e LEFT JOIN participants p ON p.event_id = e.event_id
+            ORDER BY e.event_date, e.event_id, p.name
+            """;
+    // hot and archived events together, with the archive attached. an event caught between
+    // the two transactions of an archiving batch is in both files and counts once, from the hot file
+    private static final String ARCHIVE_REPORT_QUERY = """
+            SELECT e.event_id, e.event_name, e.event_date, e.venue, e.organizer,
+                   e.participant_count, p.name, p.type
+            FROM main.events e LEFT JOIN main.participants p ON p.event_id = e.event_id
+            UNION ALL
+            SELECT e.event_id, e.event_name, e.event_date, e.venue, e.organizer,
+                   e.participant_count, p.name, p.type
+            FROM archive.events e LEFT JOIN archive.participants p ON p.event_id = e.event_id
+            WHERE e.event_id NOT IN (SELECT event_id FROM main.events)
+            ORDER BY 3, 1, 7
+            """;
+    // the same rows for a single event
+    private static final String EVENT_QUERY = """
+            SELECT e.event_id, e.event_name, e.event_date, e.venue, e.organizer,
+                   e.participant_count, p.name, p.type
+            FROM events e LEFT JOIN participants p ON p.event_id = e.event_id
+            WHERE e.event_id = ?
+            ORDER BY p.name
+            """;
+
+    // the total comes from the event's counter, so a listener has it before the participants.
+    // the count per type is only known at endEvent
+    record Event(int id, String name, String date, String venue, String organizer, int participants) {
+    }
+
+    record Summary(int totalEvents, int totalParticipants, List<Event> upcoming) {
+    }
+
+    interface Listener {
+        void event(Event event) throws IOException;
+
+        void participant(String name, String type) throws IOException;
+
+        // counts for every type value present, sorted by type
+        void endEvent(Event event, int total, Map<String, Integer> byType) throws IOException;
+
+        // called once after the last event
+        void summary(Summary summary) throws IOException;
+    }
+
+    // returns the summary also given to the listener, null when cancelled
+    static Summary run(StatementCache statements, Listener listener, BooleanSupplier cancelled)
+            throws SQLException, IOException {
+        return run(statements, listener, cancelled, false);
+    }
+
+    // withArchive reads archived events too, the archive has to be attached
+    static Summary run(StatementCache statements, Listener listener, BooleanSupplier cancelled, boolean withArchive)
+            throws SQLException, IOException {
+        PreparedStatement ps = statements.prepare(withArchive ? ARCHIVE_REPORT_QUERY : REPORT_QUERY);
+        ps.setFetchSize(500);
+        Summary summary = walk(ps, listener, cancelled);
+        if (summary != null) listener.summary(summary);
+        return summary;
+    }
+
+    // one event's event, participant and endEvent calls, no summary. false if the event is gone
+    static boolean runEvent(StatementCache statements, int eventId, Listener listener)
+            throws SQLException, IOException {
+        PreparedStatement ps = statements.prepare(EVENT_QUERY);
+        ps.setInt(1, eventId);
+        return walk(ps, listener, () -> false).totalEvents() > 0;
+    }
+
+    // events on or after this date are upcoming, the same cut-off as date('now')
+    static String today() {
+        return LocalDate.now(ZoneOffset.UTC).toString();
+    }
+
+    private static Summary walk(PreparedStatement ps, Listener listener, BooleanSupplier cancelled)
+            throws SQLException, IOException {
+        String today = today();
+
+        int totalEvents = 0;
+        int totalParticipants = 0;
+        List<Event> upcoming = new ArrayList<>();
+
+        Event current = null;
+        int total = 0;
+        Map<String, Integer> byType = new TreeMap<>();
+
+        try (ResultSet rs = ps.executeQuery()) {
+            while (rs.next()) {
+                if (cancelled.getAsBoolean()) return null;
+
+                int eventId = rs.getInt("event_id");
+                if (current == null || current.id() != eventId) {
+                    if (current != null) listener.endEvent(current, total, byType);
+                    current = new Event(eventId,
+                            rs.getString("event_name"),
+                            rs.getString("event_date"),
+                            rs.getString("venue"),
+                            rs.getString("organizer"),
+                            rs.getInt("participant_count"));
+                    total = 0;
+                    byType.clear();
+                    totalEvents++;
+                    if (current.date().compareTo(today) >= 0) upcoming.add(current);
+                    listener.event(current);
+                }
+
+                // left join: an event without participants comes back as one row of nulls
+                String name = rs.getString("name");
+                if (name == null) continue;
+                String type = rs.getString("type");
+                total++;
+                totalParticipants++;
+                byType.merge(type, 1, Integer::sum);
+                listener.participant(name, type);
+            }
+        }
+        if (current != null) listener.endEvent(current, total, byType);
+        return new Summary(totalEvents, totalParticipants, upcoming);
+    }
+}
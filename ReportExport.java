@@ -0,0 +1,103 @@
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BooleanSupplier;
+
+// writes the report to a file straight from the report cursor, in the format the file
+// extension names. nothing is kept per row, so memory stays flat however big the report
+final class ReportExport {
+    enum Format {
+        TEXT, CSV, HTML, PDF;
+
+        static Format of(Path file) {
+            String name = file.getFileName().toString().toLowerCase(Locale.ROOT);
+            if (name.endsWith(".csv")) return CSV;
+            if (name.endsWith(".html") || name.endsWith(".htm")) return HTML;
+            if (name.endsWith(".pdf")) return PDF;
+            return TEXT;
+        }
+    }
+
+    // a report sink that puts a finished file in place, or removes its traces on close if not finished
+    interface FileSink extends TextReport.Sink, Closeable {
+        void finish() throws IOException;
+    }
+
+    private ReportExport() {
+    }
+
+    // listener calls a full export makes, one per event and one per participant
+    static long size(StatementCache statements) throws SQLException {
+        return size(statements, false);
+    }
+
+    // withArchive counts archived events too, the archive has to be attached
+    static long size(StatementCache statements, boolean withArchive) throws SQLException {
+        PreparedStatement ps = statements.prepare("SELECT COUNT(*) + IFNULL(SUM(participant_count), 0) FROM events");
+        long size;
+        try (ResultSet rs = ps.executeQuery()) {
+            size = rs.next() ? rs.getLong(1) : 0;
+        }
+        if (!withArchive) return size;
+        ps = statements.prepare("SELECT COUNT(*) + IFNULL(SUM(participant_count), 0) FROM archive.events"
+                + " WHERE event_id NOT IN (SELECT event_id FROM main.events)");
+        try (ResultSet rs = ps.executeQuery()) {
+            return size + (rs.next() ? rs.getLong(1) : 0);
+        }
+    }
+
+    // returns the summary, or null when cancelled, in which case the target is left alone
+    static ReportEngine.Summary run(StatementCache statements, Path target, String user,
+                                    BooleanSupplier cancelled, AtomicLong progress) throws SQLException, IOException {
+        return run(statements, target, user, cancelled, progress, false);
+    }
+
+    // withArchive exports archived events too, the archive has to be attached
+    static ReportEngine.Summary run(StatementCache statements, Path target, String user, BooleanSupplier cancelled,
+                                    AtomicLong progress, boolean withArchive) throws SQLException, IOException {
+        Format format = Format.of(target);
+        try (FileSink sink = format == Format.PDF ? new PdfReportSink(target) : new FileReportSink(target)) {
+            ReportEngine.Listener listener = switch (format) {
+                case CSV -> new CsvReport(sink);
+                case HTML -> new HtmlReport(user, sink);
+                default -> new TextReport(user, sink);
+            };
+            ReportEngine.Summary summary = ReportEngine.run(statements, counting(listener, progress), cancelled, withArchive);
+            if (summary != null) sink.finish();
+            return summary;
+        }
+    }
+
+    private static ReportEngine.Listener counting(ReportEngine.Listener listener, AtomicLong progress) {
+        return new ReportEngine.Listener() {
+            @Override
+            public void event(ReportEngine.Event event) throws IOException {
+                progress.incrementAndGet();
+                listener.event(event);
+            }
+
+            @Override
+            public void participant(String name, String type) throws IOException {
+                progress.incrementAndGet();
+                listener.participant(name, type);
+            }
+
+            @Override
+            public void endEvent(ReportEngine.Event event, int total, Map<String, Integer> byType)
+                    throws IOException {
+                listener.endEvent(event, total, byType);
+            }
+
+            @Override
+            public void summary(ReportEngine.Summary summary) throws IOException {
+                listener.summary(summary);
+            }
+        };
+    }
+}
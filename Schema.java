@@ -0,0 +1,360 @@
+import java.sql.*;
+
+// table definitions and versioned migrations, tracked with PRAGMA user_version
+class Schema {
+    // each entry moves the schema up one version, applied in a single transaction
+    private static final String[][] MIGRATIONS = {
+            // 1: indexes for the participant lookups and date ordering
+            {
+                    "CREATE INDEX IF NOT EXISTS idx_participants_event ON participants(event_id, type, name)",
+                    "CREATE INDEX IF NOT EXISTS idx_events_date ON events(event_date)"
+            },
+            // 2: participant counters on events, kept up to date by triggers
+            {
+                    "ALTER TABLE events ADD COLUMN participant_count INTEGER NOT NULL DEFAULT 0",
+                    "ALTER TABLE events ADD COLUMN student_count INTEGER NOT NULL DEFAULT 0",
+                    "ALTER TABLE events ADD COLUMN staff_count INTEGER NOT NULL DEFAULT 0",
+                    """
+                    UPDATE events SET
+                    participant_count = (SELECT COUNT(*) FROM participants p WHERE p.event_id = events.event_id),
+                    student_count = (SELECT COUNT(*) FROM participants p WHERE p.event_id = events.event_id AND p.type = 'Student'),
+                    staff_count = (SELECT COUNT(*) FROM participants p WHERE p.event_id = events.event_id AND p.type = 'Staff')
+                    """,
+                    """
+                    CREATE TRIGGER participants_count_insert AFTER INSERT ON participants BEGIN
+                    UPDATE events SET participant_count = participant_count + 1,
+                    student_count = student_count + (NEW.type = 'Student'),
+                    staff_count = staff_count + (NEW.type = 'Staff')
+                    WHERE event_id = NEW.event_id;
+                    END
+                    """,
+                    """
+                    CREATE TRIGGER participants_count_delete AFTER DELETE ON participants BEGIN
+                    UPDATE events SET participant_count = participant_count - 1,
+                    student_count = student_count - (OLD.type = 'Student'),
+                    staff_count = staff_count - (OLD.type = 'Staff')
+                    WHERE event_id = OLD.event_id;
+                    END
+                    """,
+                    """
+                    CREATE TRIGGER participants_count_update AFTER UPDATE OF event_id, type ON participants BEGIN
+                    UPDATE events SET participant_count = participant_count - 1,
+                    student_count = student_count - (OLD.type = 'Student'),
+                    staff_count = staff_count - (OLD.type = 'Staff')
+                    WHERE event_id = OLD.event_id;
+                    UPDATE events SET participant_count = participant_count + 1,
+                    student_count = student_count + (NEW.type = 'Student'),
+                    staff_count = staff_count + (NEW.type = 'Staff')
+                    WHERE event_id = NEW.event_id;
+                    END
+                    """
+            },
+            // 3: change log of event rows, lets a client re-read only what others changed.
+            // participant writes show up through the counter update on events
+            {
+                    """
+                    CREATE TABLE event_changes (
+                    seq INTEGER PRIMARY KEY AUTOINCREMENT,
+                    event_id INTEGER NOT NULL,
+                    op TEXT NOT NULL)
+                    """,
+                    """
+                    CREATE TRIGGER events_log_insert AFTER INSERT ON events BEGIN
+                    INSERT INTO event_changes (event_id, op) VALUES (NEW.event_id, 'I');
+                    END
+                    """,
+                    """
+                    CREATE TRIGGER events_log_update AFTER UPDATE ON events BEGIN
+                    INSERT INTO event_changes (event_id, op) VALUES (NEW.event_id, 'U');
+                    END
+                    """,
+                    """
+                    CREATE TRIGGER events_log_delete AFTER DELETE ON events BEGIN
+                    INSERT INTO event_changes (event_id, op) VALUES (OLD.event_id, 'D');
+                    END
+                    """
+            },
+            // 4: full-text indexes over the event text and participant names,
+            // external content tables kept in sync by triggers
+            {
+                    """
+                    CREATE VIRTUAL TABLE events_fts USING fts5(
+                    event_name, venue, organizer, content='events', content_rowid='event_id')
+                    """,
+                    """
+                    CREATE VIRTUAL TABLE participants_fts USING fts5(
+                    name, content='participants', content_rowid='id')
+                    """,
+                    "INSERT INTO events_fts(events_fts) VALUES('rebuild')",
+                    "INSERT INTO participants_fts(participants_fts) VALUES('rebuild')",
+                    """
+                    CREATE TRIGGER events_fts_insert AFTER INSERT ON events BEGIN
+                    INSERT INTO events_fts(rowid, event_name, venue, organizer)
+                    VALUES (NEW.event_id, NEW.event_name, NEW.venue, NEW.organizer);
+                    END
+                    """,
+                    """
+                    CREATE TRIGGER events_fts_delete AFTER DELETE ON events BEGIN
+                    INSERT INTO events_fts(events_fts, rowid, event_name, venue, organizer)
+                    VALUES ('delete', OLD.event_id, OLD.event_name, OLD.venue, OLD.organizer);
+                    END
+                    """,
+                    """
+                    CREATE TRIGGER events_fts_update AFTER UPDATE OF event_name, venue, organizer ON events BEGIN
+                    INSERT INTO events_fts(events_fts, rowid, event_name, venue, organizer)
+                    VALUES ('delete', OLD.event_id, OLD.event_name, OLD.venue, OLD.organizer);
+                    INSERT INTO events_fts(rowid, event_name, venue, organizer)
+                    VALUES (NEW.event_id, NEW.event_name, NEW.venue, NEW.organizer);
+                    END
+                    """,
+                    """
+                    CREATE TRIGGER participants_fts_insert AFTER INSERT ON participants BEGIN
+                    INSERT INTO participants_fts(rowid, name) VALUES (NEW.id, NEW.name);
+                    END
+                    """,
+                    """
+                    CREATE TRIGGER participants_fts_delete AFTER DELETE ON participants BEGIN
+                    INSERT INTO participants_fts(participants_fts, rowid, name) VALUES ('delete', OLD.id, OLD.name);
+                    END
+                    """,
+                    """
+                    CREATE TRIGGER participants_fts_update AFTER UPDATE OF name ON participants BEGIN
+                    INSERT INTO participants_fts(participants_fts, rowid, name) VALUES ('delete', OLD.id, OLD.name);
+                    INSERT INTO participants_fts(rowid, name) VALUES (NEW.id, NEW.name);
+                    END
+                    """
+            },
+            // 5: start and end times as HH:MM on the event date, both null for an all day event
+            {
+                    "ALTER TABLE events ADD COLUMN start_time TEXT",
+                    "ALTER TABLE events ADD COLUMN end_time TEXT"
+            },
+            // 6: rollups for the dashboard, by month (YYYY-MM of the event date), venue and organizer.
+            // kept from the counters on events, so a registration is one keyed update per rollup
+            // and nothing ever has to group the participants table
+            {
+                    """
+                    CREATE TABLE rollup_month (
+                    month TEXT PRIMARY KEY,
+                    events INTEGER NOT NULL,
+                    participants INTEGER NOT NULL,
+                    students INTEGER NOT NULL,
+                    staff INTEGER NOT NULL)
+                    """,
+                    """
+                    CREATE TABLE rollup_venue (
+                    venue TEXT PRIMARY KEY,
+                    events INTEGER NOT NULL,
+                    participants INTEGER NOT NULL)
+                    """,
+                    """
+                    CREATE TABLE rollup_organizer (
+                    organizer TEXT PRIMARY KEY,
+                    events INTEGER NOT NULL,
+                    participants INTEGER NOT NULL)
+                    """,
+                    """
+                    INSERT INTO rollup_month SELECT substr(event_date, 1, 7), COUNT(*),
+                    SUM(participant_count), SUM(student_count), SUM(staff_count) FROM events GROUP BY 1
+                    """,
+                    "INSERT INTO rollup_venue SELECT venue, COUNT(*), SUM(participant_count) FROM events GROUP BY 1",
+                    "INSERT INTO rollup_organizer SELECT organizer, COUNT(*), SUM(participant_count) FROM events GROUP BY 1",
+                    """
+                    CREATE TRIGGER rollup_event_insert AFTER INSERT ON events BEGIN
+                    INSERT INTO rollup_month VALUES (substr(NEW.event_date, 1, 7), 1,
+                    NEW.participant_count, NEW.student_count, NEW.staff_count)
+                    ON CONFLICT(month) DO UPDATE SET events = events + 1,
+                    participants = participants + excluded.participants,
+                    students = students + excluded.students, staff = staff + excluded.staff;
+                    INSERT INTO rollup_venue VALUES (NEW.venue, 1, NEW.participant_count)
+                    ON CONFLICT(venue) DO UPDATE SET events = events + 1,
+                    participants = participants + excluded.participants;
+                    INSERT INTO rollup_organizer VALUES (NEW.organizer, 1, NEW.participant_count)
+                    ON CONFLICT(organizer) DO UPDATE SET events = events + 1,
+                    participants = participants + excluded.participants;
+                    END
+                    """,
+                    """
+                    CREATE TRIGGER rollup_event_delete AFTER DELETE ON events BEGIN
+                    UPDATE rollup_month SET events = events - 1, participants = participants - OLD.participant_count,
+                    students = students - OLD.student_count, staff = staff - OLD.staff_count
+                    WHERE month = substr(OLD.event_date, 1, 7);
+                    UPDATE rollup_venue SET events = events - 1, participants = participants - OLD.participant_count
+                    WHERE venue = OLD.venue;
+                    UPDATE rollup_organizer SET events = events - 1, participants = participants - OLD.participant_count
+                    WHERE organizer = OLD.organizer;
+                    DELETE FROM rollup_month WHERE month = substr(OLD.event_date, 1, 7) AND events = 0;
+                    DELETE FROM rollup_venue WHERE venue = OLD.venue AND events = 0;
+                    DELETE FROM rollup_organizer WHERE organizer = OLD.organizer AND events = 0;
+                    END
+                    """,
+                    // the common case, a registration moving the counters of an event that stays put
+                    """
+                    CREATE TRIGGER rollup_event_count AFTER UPDATE OF participant_count, student_count, staff_count
+                    ON events WHEN substr(OLD.event_date, 1, 7) IS substr(NEW.event_date, 1, 7)
+                    AND OLD.venue IS NEW.venue AND OLD.organizer IS NEW.organizer BEGIN
+                    UPDATE rollup_month SET participants = participants + NEW.participant_count - OLD.participant_count,
+                    students = students + NEW.student_count - OLD.student_count,
+                    staff = staff + NEW.staff_count - OLD.staff_count
+                    WHERE month = substr(NEW.event_date, 1, 7);
+                    UPDATE rollup_venue SET participants = participants + NEW.participant_count - OLD.participant_count
+                    WHERE venue = NEW.venue;
+                    UPDATE rollup_organizer SET participants = participants + NEW.participant_count - OLD.participant_count
+                    WHERE organizer = NEW.organizer;
+                    END
+                    """,
+                    // an edit that moves the event to another month, venue or organizer
+                    """
+                    CREATE TRIGGER rollup_event_move AFTER UPDATE OF event_date, venue, organizer ON events
+                    WHEN substr(OLD.event_date, 1, 7) IS NOT substr(NEW.event_date, 1, 7)
+                    OR OLD.venue IS NOT NEW.venue OR OLD.organizer IS NOT NEW.organizer BEGIN
+                    UPDATE rollup_month SET events = events - 1, participants = participants - OLD.participant_count,
+                    students = students - OLD.student_count, staff = staff - OLD.staff_count
+                    WHERE month = substr(OLD.event_date, 1, 7);
+                    UPDATE rollup_venue SET events = events - 1, participants = participants - OLD.participant_count
+                    WHERE venue = OLD.venue;
+                    UPDATE rollup_organizer SET events = events - 1, participants = participants - OLD.participant_count
+                    WHERE organizer = OLD.organizer;
+                    DELETE FROM rollup_month WHERE month = substr(OLD.event_date, 1, 7) AND events = 0;
+                    DELETE FROM rollup_venue WHERE venue = OLD.venue AND events = 0;
+                    DELETE FROM rollup_organizer WHERE organizer = OLD.organizer AND events = 0;
+                    INSERT INTO rollup_month VALUES (substr(NEW.event_date, 1, 7), 1,
+                    NEW.participant_count, NEW.student_count, NEW.staff_count)
+                    ON CONFLICT(month) DO UPDATE SET events = events + 1,
+                    participants = participants + excluded.participants,
+                    students = students + excluded.students, staff = staff + excluded.staff;
+                    INSERT INTO rollup_venue VALUES (NEW.venue, 1, NEW.participant_count)
+                    ON CONFLICT(venue) DO UPDATE SET events = events + 1,
+                    participants = participants + excluded.participants;
+                    INSERT INTO rollup_organizer VALUES (NEW.organizer, 1, NEW.participant_count)
+                    ON CONFLICT(organizer) DO UPDATE SET events = events + 1,
+                    participants = participants + excluded.participants;
+                    END
+                    """
+            },
+            // 7: archiving moves rows to another file, not out of history. while a row sits in
+            // archiving the delete triggers that would take them out of the counters and rollups
+            // stand aside, the log and search index triggers still run
+            {
+                    "CREATE TABLE archiving (active INTEGER NOT NULL)",
+                    "DROP TRIGGER participants_count_delete",
+                    """
+                    CREATE TRIGGER participants_count_delete AFTER DELETE ON participants
+                    WHEN NOT EXISTS (SELECT 1 FROM archiving) BEGIN
+                    UPDATE events SET participant_count = participant_count - 1,
+                    student_count = student_count - (OLD.type = 'Student'),
+                    staff_count = staff_count - (OLD.type = 'Staff')
+                    WHERE event_id = OLD.event_id;
+                    END
+                    """,
+                    "DROP TRIGGER rollup_event_delete",
+                    """
+                    CREATE TRIGGER rollup_event_delete AFTER DELETE ON events
+                    WHEN NOT EXISTS (SELECT 1 FROM archiving) BEGIN
+                    UPDATE rollup_month SET events = events - 1, participants = participants - OLD.participant_count,
+                    students = students - OLD.student_count, staff = staff - OLD.staff_count
+                    WHERE month = substr(OLD.event_date, 1, 7);
+                    UPDATE rollup_venue SET events = events - 1, participants = participants - OLD.participant_count
+                    WHERE venue = OLD.venue;
+                    UPDATE rollup_organizer SET events = events - 1, participants = participants - OLD.participant_count
+                    WHERE organizer = OLD.organizer;
+                    DELETE FROM rollup_month WHERE month = substr(OLD.event_date, 1, 7) AND events = 0;
+                    DELETE FROM rollup_venue WHERE venue = OLD.venue AND events = 0;
+                    DELETE FROM rollup_organizer WHERE organizer = OLD.organizer AND events = 0;
+                    END
+                    """
+            }
+    };
+
+    // change log entries kept behind the newest one
+    private static final int CHANGE_LOG_RETAINED = 10_000;
+
+    static final int VERSION = MIGRATIONS.length;
+
+    static void init(Connection conn) throws SQLException {
+        // a database already at this version needs no ddl, which keeps it off the startup path
+        if (version(conn) < VERSION) {
+            createTables(conn);
+            migrate(conn);
+        }
+    }
+
+    // drops old change log entries once there are twice as many as are kept, run in the
+    // background once the application is up. two primary key lookups when there is nothing to do
+    static void trimChangeLog(Connection conn) throws SQLException {
+        try (Statement stmt = conn.createStatement()) {
+            long span;
+            try (ResultSet rs = stmt.executeQuery("SELECT MAX(seq) - MIN(seq) FROM event_changes")) {
+                span = rs.next() ? rs.getLong(1) : 0;
+            }
+            if (span <= 2L * CHANGE_LOG_RETAINED) return;
+            stmt.execute("DELETE FROM event_changes WHERE seq < (SELECT MAX(seq) FROM event_changes) - "
+                    + CHANGE_LOG_RETAINED);
+        }
+    }
+
+    private static void createTables(Connection conn) throws SQLException {
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute("""
+                    CREATE TABLE IF NOT EXISTS users (
+                    id INTEGER PRIMARY KEY AUTOINCREMENT,
+                    username TEXT UNIQUE NOT NULL,
+                    password TEXT NOT NULL)
+                    """);
+
+            stmt.execute("""
+                    CREATE TABLE IF NOT EXISTS events (
+                    event_id INTEGER PRIMARY KEY AUTOINCREMENT,
+                    event_name TEXT NOT NULL,
+                    event_date TEXT NOT NULL,
+                    venue TEXT NOT NULL,
+                    organizer TEXT NOT NULL)
+                    """);
+
+            stmt.execute("""
+                    CREATE TABLE IF NOT EXISTS participants (
+                    id INTEGER PRIMARY KEY AUTOINCREMENT,
+                    event_id INTEGER,
+                    name TEXT NOT NULL,
+                    type TEXT NOT NULL,
+                    FOREIGN KEY(event_id) REFERENCES events(event_id))
+                    """);
+        }
+
+        try (PreparedStatement ps = conn.prepareStatement(
+                "INSERT OR IGNORE INTO users (username, password) VALUES (?, ?)")) {
+            ps.setString(1, "kalokoh");
+            ps.setString(2, "kalokoh");
+            ps.execute();
+        }
+    }
+
+    static int version(Connection conn) throws SQLException {
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("PRAGMA user_version")) {
+            return rs.next() ? rs.getInt(1) : 0;
+        }
+    }
+
+    private static void migrate(Connection conn) throws SQLException {
+        int version = version(conn);
+        if (version >= VERSION) return;
+
+        boolean autoCommit = conn.getAutoCommit();
+        conn.setAutoCommit(false);
+        try (Statement stmt = conn.createStatement()) {
+            for (int v = version; v < VERSION; v++) {
+                for (String sql : MIGRATIONS[v]) {
+                    stmt.execute(sql);
+                }
+                stmt.execute("PRAGMA user_version = " + (v + 1));
+                conn.commit();
+            }
+        } catch (SQLException e) {
+            conn.rollback();
+            throw e;
+        } finally {
+            conn.setAutoCommit(autoCommit);
+        }
+    }
+}
@@ -0,0 +1,7 @@
+import java.io.IOException;
+import java.sql.SQLException;
+
+// a unit of database work, handed the statement cache of the connection it runs on
+interface SqlTask<T> {
+    T run(StatementCache statements) throws SQLException, IOException;
+}
@@ -0,0 +1,100 @@
+import java.sql.*;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+// prepared statements of one connection keyed by sql text, least recently used closed first.
+// not thread safe, AsyncDb hands it out under the connection lock
+class StatementCache implements AutoCloseable {
+    static final int DEFAULT_CAPACITY = 64;
+    private static final int MAX_TRACE = 4096;
+
+    private final Connection conn;
+    private final LinkedHashMap<String, PreparedStatement> statements;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    // sql prepared since beginTrace, for the diagnostics events
+    private StringBuilder trace;
+
+    StatementCache(Connection conn, int capacity) {
+        this.conn = conn;
+        this.statements = new LinkedHashMap<>(capacity, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, PreparedStatement> eldest) {
+                if (size() <= capacity) return false;
+                evictions.increment();
+                closeQuietly(eldest.getValue());
+                return true;
+            }
+        };
+    }
+
+    Connection connection() {
+        return conn;
+    }
+
+    // the returned statement belongs to the cache, callers close only its result sets
+    PreparedStatement prepare(String sql) throws SQLException {
+        if (trace != null && trace.length() < MAX_TRACE && trace.indexOf(sql) < 0) {
+            if (!trace.isEmpty()) trace.append(";\n");
+            trace.append(sql);
+        }
+        PreparedStatement ps = statements.get(sql);
+        if (ps != null && !ps.isClosed()) {
+            hits.increment();
+            ps.clearParameters();
+            return ps;
+        }
+        misses.increment();
+        ps = conn.prepareStatement(sql);
+        statements.put(sql, ps);
+        return ps;
+    }
+
+    void beginTrace() {
+        trace = new StringBuilder();
+    }
+
+    String endTrace() {
+        String sql = trace != null ? trace.toString() : "";
+        trace = null;
+        return sql;
+    }
+
+    long hits() {
+        return hits.sum();
+    }
+
+    long misses() {
+        return misses.sum();
+    }
+
+    long evictions() {
+        return evictions.sum();
+    }
+
+    int size() {
+        return statements.size();
+    }
+
+    @Override
+    public String toString() {
+        return "statements=" + size() + " hits=" + hits() + " misses=" + misses() + " evictions=" + evictions();
+    }
+
+    @Override
+    public void close() {
+        statements.values().forEach(StatementCache::closeQuietly);
+        statements.clear();
+    }
+
+    private static void closeQuietly(Statement stmt) {
+        try {
+            stmt.close();
+        } catch (SQLException ignored) {
+        }
+    }
+}
@@ -0,0 +1,88 @@
+import java.sql.*;
+
+// sqlite pragmas and connection layout, picked with -Dems.storage=tuned|legacy
+// and overridable one by one, e.g. -Dems.mmap_size=0 or -Dems.readers=2
+record StorageProfile(String journalMode, String synchronous, long mmapSize, int cacheSize,
+                      int busyTimeout, int readers) {
+
+    // WAL lets readers run while the writer commits, NORMAL only syncs at checkpoints
+    static final StorageProfile TUNED = new StorageProfile("WAL", "NORMAL", 256L * 1024 * 1024, -64 * 1024, 5000, 4);
+    // what a plain DriverManager connection gets
+    static final StorageProfile LEGACY = new StorageProfile("DELETE", "FULL", 0, -2000, 0, 0);
+
+    static final String DEFAULT_URL = "jdbc:sqlite:university_events.db";
+
+    private static final String[] REPORTED = {"journal_mode", "synchronous", "mmap_size", "cache_size", "busy_timeout"};
+
+    static StorageProfile fromSystemProperties() {
+        StorageProfile base = "legacy".equalsIgnoreCase(System.getProperty("ems.storage")) ? LEGACY : TUNED;
+        return new StorageProfile(
+                System.getProperty("ems.journal_mode", base.journalMode),
+                System.getProperty("ems.synchronous", base.synchronous),
+                Long.getLong("ems.mmap_size", base.mmapSize),
+                Integer.getInteger("ems.cache_size", base.cacheSize),
+                Integer.getInteger("ems.busy_timeout", base.busyTimeout),
+                Integer.getInteger("ems.readers", base.readers));
+    }
+
+    // the single writer, with the schema brought up to date
+    Connection openWriter(String url) throws SQLException {
+        Connection conn = DriverManager.getConnection(url);
+        try {
+            applyWriter(conn);
+            Schema.init(conn);
+            return conn;
+        } catch (SQLException e) {
+            conn.close();
+            throw e;
+        }
+    }
+
+    Connection openReader(String url) throws SQLException {
+        Connection conn = DriverManager.getConnection(url);
+        try {
+            applyReader(conn);
+            return conn;
+        } catch (SQLException e) {
+            conn.close();
+            throw e;
+        }
+    }
+
+    void applyWriter(Connection conn) throws SQLException {
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute("PRAGMA journal_mode = " + journalMode);
+            stmt.execute("PRAGMA synchronous = " + synchronous);
+        }
+        applyCommon(conn);
+    }
+
+    void applyReader(Connection conn) throws SQLException {
+        applyCommon(conn);
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute("PRAGMA query_only = ON");
+        }
+    }
+
+    private void applyCommon(Connection conn) throws SQLException {
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute("PRAGMA busy_timeout = " + busyTimeout);
+            stmt.execute("PRAGMA mmap_size = " + mmapSize);
+            stmt.execute("PRAGMA cache_size = " + cacheSize);
+        }
+    }
+
+    // what sqlite actually settled on, a pragma can be refused silently. shown in the
+    // diagnostics dialog
+    static String effective(Connection conn) throws SQLException {
+        StringBuilder line = new StringBuilder("SQLite storage:");
+        try (Statement stmt = conn.createStatement()) {
+            for (String pragma : REPORTED) {
+                try (ResultSet rs = stmt.executeQuery("PRAGMA " + pragma)) {
+                    line.append(' ').append(pragma).append('=').append(rs.next() ? rs.getString(1) : "?");
+                }
+            }
+        }
+        return line.toString();
+    }
+}
@@ -0,0 +1,131 @@
+import java.io.IOException;
+import java.util.Map;
+
+// plain text rendering of the event report, written out in chunks
+class TextReport implements ReportEngine.Listener {
+    private static final int CHUNK_SIZE = 16 * 1024;
+    private static final String LINE = "----------------------------------------------------\n";
+    private static final String DOUBLE_LINE = "====================================================\n";
+
+    // where the rendered text goes
+    interface Sink {
+        void append(String text) throws IOException;
+
+        // remembers the current position for the summary
+        void mark() throws IOException;
+
+        // the summary is only known at the end, sinks that can put it back at the mark
+        void insertAtMark(String text) throws IOException;
+    }
+
+    private final Sink sink;
+    private final StringBuilder chunk = new StringBuilder(CHUNK_SIZE + 1024);
+    private boolean hasParticipants;
+    // where the current event's type counts go once they are known
+    private int typesAt;
+
+    TextReport(String user, Sink sink) throws IOException {
+        this.sink = sink;
+        chunk.append(DOUBLE_LINE);
+        chunk.append("   LIMKOKWING UNIVERSITY EVENT MANAGEMENT REPORT\n");
+        chunk.append(DOUBLE_LINE);
+        chunk.append("Generated By : ").append(user).append("\n");
+        chunk.append("Generated On : ").append(new java.util.Date()).append("\n\n");
+        flush();
+        sink.mark();
+
+        chunk.append("DETAILED EVENT BREAKDOWN\n");
+        chunk.append(DOUBLE_LINE);
+    }
+
+    @Override
+    public void event(ReportEngine.Event event) throws IOException {
+        header(chunk, event);
+        typesAt = chunk.length();
+        hasParticipants = false;
+    }
+
+    @Override
+    public void participant(String name, String type) throws IOException {
+        // the event stays in the chunk until its type counts are filled in at endEvent
+        participant(chunk, name, type, !hasParticipants);
+        hasParticipants = true;
+    }
+
+    @Override
+    public void endEvent(ReportEngine.Event event, int total, Map<String, Integer> byType) throws IOException {
+        types(chunk, typesAt, byType);
+        footer(chunk, total);
+        if (chunk.length() >= CHUNK_SIZE) flush();
+    }
+
+    // an event section rendered earlier with header, participant and footer
+    void section(String text) throws IOException {
+        chunk.append(text);
+        if (chunk.length() >= CHUNK_SIZE) flush();
+    }
+
+    static void header(StringBuilder sb, ReportEngine.Event event) {
+        sb.append("\nEvent: ").append(event.name()).append("\n");
+        sb.append("Date : ").append(event.date()).append("\n");
+        sb.append("Venue: ").append(event.venue()).append("\n");
+        sb.append("Organizer: ").append(event.organizer()).append("\n");
+        sb.append("Total Participants: ").append(event.participants()).append("\n");
+    }
+
+    // the per-type lines under the header, which ended at the given position
+    static void types(StringBuilder sb, int at, Map<String, Integer> byType) {
+        StringBuilder lines = new StringBuilder();
+        for (Map.Entry<String, Integer> type : byType.entrySet()) {
+            lines.append("  - ").append(type.getKey()).append(": ").append(type.getValue()).append("\n");
+        }
+        sb.insert(at, lines);
+    }
+
+    static void participant(StringBuilder sb, String name, String type, boolean first) {
+        if (first) sb.append("Participant List:\n");
+        sb.append("   • ").append(name).append(" (").append(type).append(")\n");
+    }
+
+    static void footer(StringBuilder sb, int total) {
+        if (total == 0) sb.append("No participants registered.\n");
+        sb.append(LINE);
+    }
+
+    @Override
+    public void summary(ReportEngine.Summary summary) throws IOException {
+        flush();
+
+        StringBuilder s = new StringBuilder();
+        s.append("SUMMARY STATISTICS\n");
+        s.append(LINE);
+        s.append("Total Events        : ").append(summary.totalEvents()).append("\n");
+        s.append("Total Participants : ").append(summary.totalParticipants()).append("\n");
+        if (summary.totalEvents() > 0) {
+            s.append("Average Participants/Event : ")
+                    .append(summary.totalParticipants() / summary.totalEvents()).append("\n");
+        }
+        s.append("\n");
+
+        s.append("UPCOMING EVENTS\n");
+        s.append(LINE);
+        for (ReportEngine.Event event : summary.upcoming()) {
+            s.append("Event Name : ").append(event.name()).append("\n");
+            s.append("Date       : ").append(event.date()).append("\n");
+            s.append("Venue      : ").append(event.venue()).append("\n");
+            s.append("Organizer  : ").append(event.organizer()).append("\n");
+            s.append(LINE);
+        }
+        if (summary.upcoming().isEmpty()) {
+            s.append("No upcoming events found.\n");
+        }
+        s.append("\n");
+        sink.insertAtMark(s.toString());
+    }
+
+    private void flush() throws IOException {
+        if (chunk.length() == 0) return;
+        sink.append(chunk.toString());
+        chunk.setLength(0);
+    }
+}
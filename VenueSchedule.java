@@ -0,0 +1,223 @@
+import java.sql.*;
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.format.DateTimeParseException;
+import java.util.*;
+
+// bookings per venue in interval trees, loaded from events once and then kept current
+// from the event_changes log, so conflict checks and free slot searches never scan the table.
+// times are minutes since the epoch, an event without times takes the whole day
+class VenueSchedule {
+    // free slots are only looked for while the campus is open
+    static final LocalTime OPENS = LocalTime.of(8, 0);
+    static final LocalTime CLOSES = LocalTime.of(22, 0);
+    private static final long MINUTES_PER_DAY = 24 * 60;
+
+    record Slot(LocalDateTime start, LocalDateTime end) {
+    }
+
+    // where an indexed event sits, to find it again when it changes
+    private record Booking(String venue, IntervalTree.Interval interval) {
+    }
+
+    private final Map<String, IntervalTree> venues = new HashMap<>();
+    private final Map<Integer, Booking> bookings = new HashMap<>();
+    // change log position already applied, -1 until the first full load
+    private long lastSeq = -1;
+
+    // brings the index up to date with the database, cheap when nothing changed
+    synchronized void sync(StatementCache statements) throws SQLException {
+        long oldest = -1, newest = 0;
+        try (ResultSet rs = statements.prepare("SELECT MIN(seq), MAX(seq) FROM event_changes").executeQuery()) {
+            if (rs.next()) {
+                oldest = rs.getLong(1);
+                newest = rs.getLong(2);
+            }
+        }
+        // first use, or the log was trimmed past what was applied
+        if (lastSeq < 0 || oldest > lastSeq + 1) {
+            load(statements, newest);
+            return;
+        }
+        if (newest <= lastSeq) return;
+
+        Set<Integer> changed = new LinkedHashSet<>();
+        PreparedStatement ps = statements.prepare("SELECT seq, event_id FROM event_changes WHERE seq > ? ORDER BY seq");
+        ps.setLong(1, lastSeq);
+        long seq = lastSeq;
+        try (ResultSet rs = ps.executeQuery()) {
+            while (rs.next()) {
+                seq = rs.getLong(1);
+                changed.add(rs.getInt(2));
+            }
+        }
+        PreparedStatement row = statements.prepare(
+                "SELECT event_date, venue, start_time, end_time FROM events WHERE event_id = ?");
+        for (int id : changed) {
+            row.setInt(1, id);
+            try (ResultSet rs = row.executeQuery()) {
+                if (rs.next()) {
+                    put(id, rs.getString(1), rs.getString(2), rs.getString(3), rs.getString(4));
+                } else {
+                    remove(id);
+                }
+            }
+        }
+        lastSeq = seq;
+    }
+
+    private void load(StatementCache statements, long seq) throws SQLException {
+        venues.clear();
+        bookings.clear();
+        // anything logged after seq is applied again on the next sync, which is harmless
+        try (ResultSet rs = statements.prepare(
+                "SELECT event_id, event_date, venue, start_time, end_time FROM events").executeQuery()) {
+            while (rs.next()) {
+                put(rs.getInt(1), rs.getString(2), rs.getString(3), rs.getString(4), rs.getString(5));
+            }
+        }
+        lastSeq = seq;
+    }
+
+    private void put(int id, String date, String venue, String start, String end) {
+        remove(id);
+        long[] span = span(date, start, end);
+        // free text dates from before times were kept cannot be placed
+        if (span == null) return;
+        Booking booking = new Booking(key(venue), new IntervalTree.Interval(span[0], span[1], id));
+        venues.computeIfAbsent(booking.venue(), k -> new IntervalTree()).insert(booking.interval());
+        bookings.put(id, booking);
+    }
+
+    private void remove(int id) {
+        Booking booking = bookings.remove(id);
+        if (booking == null) return;
+        IntervalTree tree = venues.get(booking.venue());
+        tree.remove(booking.interval().start(), id);
+        if (tree.size() == 0) venues.remove(booking.venue());
+    }
+
+    // ids of other events at the venue overlapping the given booking
+    synchronized List<Integer> conflicts(String venue, String date, String start, String end, int exceptId) {
+        long[] span = span(date, start, end);
+        IntervalTree tree = venues.get(key(venue));
+        if (span == null || tree == null) return List.of();
+        List<Integer> ids = new ArrayList<>();
+        for (IntervalTree.Interval i : tree.overlapping(span[0], span[1])) {
+            if (i.id() != exceptId) ids.add(i.id());
+        }
+        return ids;
+    }
+
+    // first gap of at least the given length during opening hours, null if every day is full
+    synchronized Slot freeSlot(String venue, LocalDate from, LocalDate to, int minutes) {
+        IntervalTree tree = venues.get(key(venue));
+        for (LocalDate day = from; !day.isAfter(to); day = day.plusDays(1)) {
+            long open = minuteOf(day, OPENS), close = minuteOf(day, CLOSES);
+            long cursor = open;
+            if (tree != null) {
+                for (IntervalTree.Interval i : tree.overlapping(open, close)) {
+                    if (i.start() - cursor >= minutes) return slot(cursor, i.start());
+                    cursor = Math.max(cursor, i.end());
+                }
+            }
+            if (close - cursor >= minutes) return slot(cursor, close);
+        }
+        return null;
+    }
+
+    // "name, date start - end" of each event, for conflict messages
+    static List<String> describe(StatementCache statements, List<Integer> ids) throws SQLException {
+        PreparedStatement ps = statements.prepare(
+                "SELECT event_name, event_date, start_time, end_time FROM events WHERE event_id = ?");
+        List<String> lines = new ArrayList<>(ids.size());
+        for (int id : ids) {
+            ps.setInt(1, id);
+            try (ResultSet rs = ps.executeQuery()) {
+                if (!rs.next()) continue;
+                String start = rs.getString(3);
+                lines.add(rs.getString(1) + ", " + rs.getString(2) + " "
+                        + (start == null ? "all day" : start + " - " + rs.getString(4)));
+            }
+        }
+        return lines;
+    }
+
+    // checks the values a user typed, null when they are fine, otherwise what is wrong
+    static String validate(String date, String start, String end) {
+        try {
+            LocalDate.parse(date);
+        } catch (DateTimeParseException e) {
+            return "Date must be YYYY-MM-DD";
+        }
+        if (start.isBlank() && end.isBlank()) return null;
+        try {
+            if (!LocalTime.parse(start).isBefore(LocalTime.parse(end))) return "End time must be after start time";
+        } catch (DateTimeParseException e) {
+            return "Times must be HH:MM, or both left empty for an all day event";
+        }
+        return null;
+    }
+
+    // [start, end) in epoch minutes, null if the date is not an iso date
+    private static long[] span(String date, String start, String end) {
+        if (date == null) return null;
+        try {
+            long midnight = epochDay(date) * MINUTES_PER_DAY;
+            if (start == null || start.isBlank() || end == null || end.isBlank()) {
+                return new long[]{midnight, midnight + MINUTES_PER_DAY};
+            }
+            return new long[]{midnight + minuteOfDay(start), midnight + minuteOfDay(end)};
+        } catch (DateTimeException e) {
+            return null;
+        }
+    }
+
+    // the formatter based parsers cost more than the tree itself, so the stored
+    // YYYY-MM-DD and HH:MM forms are read by hand and anything else goes to java.time
+    private static long epochDay(String date) {
+        if (date.length() == 10 && date.charAt(4) == '-' && date.charAt(7) == '-') {
+            int year = digits(date, 0, 4), month = digits(date, 5, 7), day = digits(date, 8, 10);
+            if (year >= 0 && month >= 0 && day >= 0) return LocalDate.of(year, month, day).toEpochDay();
+        }
+        return LocalDate.parse(date).toEpochDay();
+    }
+
+    private static int minuteOfDay(String time) {
+        if (time.length() == 5 && time.charAt(2) == ':') {
+            int hour = digits(time, 0, 2), minute = digits(time, 3, 5);
+            if (hour >= 0 && hour < 24 && minute >= 0 && minute < 60) return hour * 60 + minute;
+        }
+        return LocalTime.parse(time).toSecondOfDay() / 60;
+    }
+
+    // value of the decimal digits in s[from, to), -1 if there is anything else
+    private static int digits(String s, int from, int to) {
+        int value = 0;
+        for (int i = from; i < to; i++) {
+            char c = s.charAt(i);
+            if (c < '0' || c > '9') return -1;
+            value = value * 10 + (c - '0');
+        }
+        return value;
+    }
+
+    private static long minuteOf(LocalDate day, LocalTime time) {
+        return day.toEpochDay() * MINUTES_PER_DAY + time.toSecondOfDay() / 60;
+    }
+
+    private static Slot slot(long start, long end) {
+        return new Slot(toDateTime(start), toDateTime(end));
+    }
+
+    private static LocalDateTime toDateTime(long minute) {
+        return LocalDate.ofEpochDay(Math.floorDiv(minute, MINUTES_PER_DAY))
+                .atTime(LocalTime.ofSecondOfDay(Math.floorMod(minute, MINUTES_PER_DAY) * 60));
+    }
+
+    private static String key(String venue) {
+        return venue == null ? "" : venue.trim().toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,128 @@
+package bench;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.util.List;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+
+// handles onto the application's data-access code. the application lives in the unnamed
+// package, which other packages cannot import and jmh will not take benchmarks from, so it is
+// looked up reflectively once and called through method handles afterwards
+final class App {
+    private static final Class<?> ASYNC_DB = type("AsyncDb");
+    private static final Class<?> STORAGE_PROFILE = type("StorageProfile");
+    private static final Class<?> STATEMENT_CACHE = type("StatementCache");
+    private static final Class<?> EVENT_TABLE_MODEL = type("EventTableModel");
+    private static final Class<?> EVENT_ROW = type("EventTableModel$EventRow");
+    private static final Class<?> REPORT_ENGINE = type("ReportEngine");
+    private static final Class<?> REPORT_LISTENER = type("ReportEngine$Listener");
+    private static final Class<?> CSV_IMPORTER = type("CsvImporter");
+
+    private static final MethodHandle OPEN = handle(ASYNC_DB, "open", String.class, STORAGE_PROFILE);
+    private static final MethodHandle PROFILE = handle(STORAGE_PROFILE, "fromSystemProperties");
+    private static final MethodHandle STATEMENTS = handle(ASYNC_DB, "statements");
+    private static final MethodHandle CLOSE = handle(ASYNC_DB, "close");
+    private static final MethodHandle CONNECTION = handle(STATEMENT_CACHE, "connection");
+    private static final MethodHandle PREPARE = handle(STATEMENT_CACHE, "prepare", String.class);
+    private static final MethodHandle PAGE_QUERY = handle(EVENT_TABLE_MODEL, "pageQuery",
+            int.class, boolean.class, String.class, boolean.class, boolean.class);
+    private static final MethodHandle FETCH_PAGE = handle(EVENT_TABLE_MODEL, "fetchPage",
+            STATEMENT_CACHE, String.class, String.class, int.class, EVENT_ROW, Object.class, int.class);
+    private static final MethodHandle SORT_VALUE = handle(EVENT_TABLE_MODEL, "sortValue", EVENT_ROW, int.class);
+    private static final MethodHandle MATCH_QUERY = handle(EVENT_TABLE_MODEL, "toMatchQuery", String.class);
+    private static final MethodHandle RUN_REPORT = handle(REPORT_ENGINE, "run",
+            STATEMENT_CACHE, REPORT_LISTENER, BooleanSupplier.class);
+    private static final MethodHandle NEW_IMPORTER = constructor(CSV_IMPORTER, STATEMENT_CACHE);
+    private static final MethodHandle IMPORT_FILE = handle(CSV_IMPORTER, "importFile", Path.class);
+
+    private App() {
+    }
+
+    // opens the database the way the application does, ems.* system properties apply
+    static Object open(Path file) throws Throwable {
+        Class.forName("org.sqlite.JDBC");
+        return OPEN.invoke("jdbc:sqlite:" + file, PROFILE.invoke());
+    }
+
+    static void close(Object db) throws Throwable {
+        CLOSE.invoke(db);
+    }
+
+    // statement cache of the writer connection
+    static Object statements(Object db) throws Throwable {
+        return STATEMENTS.invoke(db);
+    }
+
+    static Connection connection(Object statements) throws Throwable {
+        return (Connection) CONNECTION.invoke(statements);
+    }
+
+    static PreparedStatement prepare(Object statements, String sql) throws Throwable {
+        return (PreparedStatement) PREPARE.invoke(statements, sql);
+    }
+
+    // one page of the event table, the one after anchor when given
+    static List<?> eventPage(Object statements, int column, boolean ascending, String search, Object anchor)
+            throws Throwable {
+        String sql = (String) PAGE_QUERY.invoke(column, ascending, search, anchor != null, false);
+        Object key = anchor != null ? SORT_VALUE.invoke(anchor, column) : null;
+        return (List<?>) FETCH_PAGE.invoke(statements, sql, search, column, anchor, key, -1);
+    }
+
+    static String matchQuery(String text) throws Throwable {
+        return (String) MATCH_QUERY.invoke(text);
+    }
+
+    // runs the full report, every callback argument goes to sink
+    static void report(Object statements, Consumer<Object> sink) throws Throwable {
+        Object listener = Proxy.newProxyInstance(REPORT_LISTENER.getClassLoader(), new Class<?>[]{REPORT_LISTENER},
+                (proxy, method, args) -> {
+                    if (args != null) {
+                        for (Object arg : args) sink.accept(arg);
+                    }
+                    return null;
+                });
+        BooleanSupplier never = () -> false;
+        RUN_REPORT.invoke(statements, listener, never);
+    }
+
+    // imports a participant csv on the writer, returns the importer's result
+    static Object importCsv(Object statements, Path csv) throws Throwable {
+        return IMPORT_FILE.invoke(NEW_IMPORTER.invoke(statements), csv);
+    }
+
+    private static Class<?> type(String name) {
+        try {
+            return Class.forName(name);
+        } catch (ClassNotFoundException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private static MethodHandle handle(Class<?> owner, String name, Class<?>... parameters) {
+        try {
+            Method method = owner.getDeclaredMethod(name, parameters);
+            method.setAccessible(true);
+            return MethodHandles.lookup().unreflect(method);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private static MethodHandle constructor(Class<?> owner, Class<?>... parameters) {
+        try {
+            Constructor<?> constructor = owner.getDeclaredConstructor(parameters);
+            constructor.setAccessible(true);
+            return MethodHandles.lookup().unreflectConstructor(constructor);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+}
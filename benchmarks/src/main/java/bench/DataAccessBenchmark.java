@@ -0,0 +1,125 @@
+package bench;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+// hot data-access paths of the application against a generated database.
+// sizes and storage mode are jmh parameters, e.g. -p participants=1000000 -p storage=legacy
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class DataAccessBenchmark {
+    // same statements as Main's login and registration handlers
+    private static final String LOGIN = "SELECT * FROM users WHERE username = ? AND password = ?";
+    private static final String REGISTER = "INSERT INTO participants VALUES(NULL,?,?,?)";
+
+    private static final int IMPORT_ROWS = 1000;
+
+    @Param({"1000"})
+    public int events;
+
+    @Param({"100000"})
+    public int participants;
+
+    @Param({"tuned", "legacy"})
+    public String storage;
+
+    private Path dir;
+    private Path file;
+    private Path csv;
+    private Object db;
+    private Object statements;
+    private Object middleRow;
+    private String search;
+    private final Random random = new Random(DataGenerator.SEED);
+
+    @Setup(Level.Trial)
+    public void setUp() throws Throwable {
+        System.setProperty("ems.storage", storage);
+        dir = Files.createTempDirectory("ems-bench");
+        file = DataGenerator.copy(events, participants, dir);
+        csv = DataGenerator.csv(dir, IMPORT_ROWS, events);
+        db = App.open(file);
+        statements = App.statements(db);
+
+        // anchor for a keyset page from the middle of the date-sorted list
+        Object anchor = null;
+        for (int page = 0; page < events / 2 / 100; page++) {
+            List<?> rows = App.eventPage(statements, 2, true, null, anchor);
+            if (rows.isEmpty()) break;
+            anchor = rows.get(rows.size() - 1);
+        }
+        middleRow = anchor;
+        search = App.matchQuery("kamara 12");
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Throwable {
+        App.close(db);
+        DataGenerator.delete(file);
+        Files.deleteIfExists(csv);
+        Files.deleteIfExists(dir);
+    }
+
+    @Benchmark
+    public List<?> eventListFirstPage() throws Throwable {
+        return App.eventPage(statements, 2, true, null, null);
+    }
+
+    @Benchmark
+    public List<?> eventListKeysetPage() throws Throwable {
+        return App.eventPage(statements, 2, true, null, middleRow);
+    }
+
+    @Benchmark
+    public List<?> eventListSortedByParticipants() throws Throwable {
+        return App.eventPage(statements, 6, false, null, null);
+    }
+
+    @Benchmark
+    public List<?> eventListSearch() throws Throwable {
+        return App.eventPage(statements, 0, true, search, null);
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public void report(Blackhole bh) throws Throwable {
+        App.report(statements, bh::consume);
+    }
+
+    @Benchmark
+    public int registerSingle() throws Throwable {
+        PreparedStatement ps = App.prepare(statements, REGISTER);
+        ps.setInt(1, 1 + random.nextInt(events));
+        ps.setString(2, DataGenerator.name(random));
+        ps.setString(3, "Student");
+        return ps.executeUpdate();
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public Object registerBatch() throws Throwable {
+        return App.importCsv(statements, csv);
+    }
+
+    @Benchmark
+    public boolean login() throws Throwable {
+        PreparedStatement ps = App.prepare(statements, LOGIN);
+        ps.setString(1, "kalokoh");
+        ps.setString(2, "kalokoh");
+        try (ResultSet rs = ps.executeQuery()) {
+            return rs.next();
+        }
+    }
+}
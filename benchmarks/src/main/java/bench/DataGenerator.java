@@ -0,0 +1,124 @@
+package bench;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.time.LocalDate;
+import java.util.Random;
+
+// fills a sqlite file with a repeatable synthetic data set. the same sizes and seed always give
+// the same rows, and a generated file is kept under target/bench-data and reused between runs
+final class DataGenerator {
+    static final long SEED = 42;
+    private static final int BATCH_SIZE = 1000;
+
+    private static final String[] FIRST = {"Aminata", "Mohamed", "Fatmata", "Ibrahim", "Isatu", "Abdul",
+            "Mariama", "Alhaji", "Kadiatu", "Sorie", "Hawa", "Foday", "Zainab", "Sahr", "Adama", "Tamba"};
+    private static final String[] LAST = {"Kamara", "Sesay", "Koroma", "Bangura", "Conteh", "Turay",
+            "Jalloh", "Kanu", "Mansaray", "Fofanah", "Kargbo", "Bah", "Barrie", "Sankoh", "Tarawally"};
+    private static final String[] KINDS = {"Orientation", "Workshop", "Seminar", "Exhibition", "Tournament",
+            "Concert", "Career Fair", "Hackathon", "Graduation", "Open Day"};
+    private static final String[] VENUES = {"Main Hall", "Auditorium", "Sports Complex", "Library",
+            "Design Studio", "Lecture Theatre 1", "Lecture Theatre 2", "Courtyard"};
+    private static final String[] ORGANIZERS = {"Student Council", "Faculty of ICT", "Faculty of Design",
+            "Sports Office", "Registry", "Career Services", "Alumni Office"};
+    private static final LocalDate FIRST_DAY = LocalDate.of(2023, 1, 1);
+    private static final int DAYS = 3 * 365;
+
+    private DataGenerator() {
+    }
+
+    // a scratch copy of the data set for one trial, callers delete it with delete()
+    static Path copy(int events, int participants, Path dir) throws Throwable {
+        Path source = ensure(events, participants);
+        Path target = dir.resolve(source.getFileName());
+        Files.copy(source, target, StandardCopyOption.REPLACE_EXISTING);
+        return target;
+    }
+
+    static synchronized Path ensure(int events, int participants) throws Throwable {
+        Path dir = Path.of(System.getProperty("ems.bench.data", "target/bench-data"));
+        Path file = dir.resolve("ems-" + events + "-" + participants + ".db");
+        if (Files.exists(file)) return file;
+
+        Files.createDirectories(dir);
+        Path partial = dir.resolve(file.getFileName() + ".partial");
+        delete(partial);
+        generate(partial, events, participants);
+        Files.move(partial, file, StandardCopyOption.REPLACE_EXISTING);
+        return file;
+    }
+
+    static void generate(Path file, int events, int participants) throws Throwable {
+        Random random = new Random(SEED);
+        // the application's own open creates the schema, indexes and triggers
+        Object db = App.open(file);
+        try {
+            Connection conn = App.connection(App.statements(db));
+            conn.setAutoCommit(false);
+            try (PreparedStatement ps = conn.prepareStatement(
+                    "INSERT INTO events (event_name, event_date, venue, organizer) VALUES (?, ?, ?, ?)")) {
+                for (int i = 0; i < events; i++) {
+                    ps.setString(1, KINDS[random.nextInt(KINDS.length)] + " " + (i + 1));
+                    ps.setString(2, FIRST_DAY.plusDays(random.nextInt(DAYS)).toString());
+                    ps.setString(3, VENUES[random.nextInt(VENUES.length)]);
+                    ps.setString(4, ORGANIZERS[random.nextInt(ORGANIZERS.length)]);
+                    ps.addBatch();
+                    if ((i + 1) % BATCH_SIZE == 0) ps.executeBatch();
+                }
+                ps.executeBatch();
+            }
+            try (PreparedStatement ps = conn.prepareStatement("INSERT INTO participants VALUES (NULL, ?, ?, ?)")) {
+                for (int i = 0; i < participants; i++) {
+                    ps.setInt(1, 1 + random.nextInt(events));
+                    ps.setString(2, name(random));
+                    ps.setString(3, random.nextInt(5) == 0 ? "Staff" : "Student");
+                    ps.addBatch();
+                    if ((i + 1) % BATCH_SIZE == 0) ps.executeBatch();
+                }
+                ps.executeBatch();
+            }
+            conn.commit();
+            conn.setAutoCommit(true);
+            try (var stmt = conn.createStatement()) {
+                // fold the wal back so the file can be copied on its own
+                stmt.execute("PRAGMA wal_checkpoint(TRUNCATE)");
+                stmt.execute("ANALYZE");
+            }
+        } finally {
+            App.close(db);
+        }
+    }
+
+    // a name,type,event csv of rows for existing events, as an import file would look
+    static Path csv(Path dir, int rows, int events) throws IOException {
+        Random random = new Random(SEED + rows);
+        Path file = dir.resolve("import-" + rows + ".csv");
+        try (BufferedWriter out = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            out.write("name,type,event\n");
+            for (int i = 0; i < rows; i++) {
+                out.write(name(random));
+                out.write(random.nextInt(5) == 0 ? ",Staff," : ",Student,");
+                out.write(Integer.toString(1 + random.nextInt(events)));
+                out.write('\n');
+            }
+        }
+        return file;
+    }
+
+    static String name(Random random) {
+        return FIRST[random.nextInt(FIRST.length)] + " " + LAST[random.nextInt(LAST.length)]
+                + " " + (1000 + random.nextInt(9000));
+    }
+
+    static void delete(Path db) throws IOException {
+        Files.deleteIfExists(db);
+        Files.deleteIfExists(Path.of(db + "-wal"));
+        Files.deleteIfExists(Path.of(db + "-shm"));
+    }
+}
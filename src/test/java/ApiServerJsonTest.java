@@ -0,0 +1,55 @@
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+
+class ApiServerJsonTest {
+    private static String string(String value) {
+        return ApiServer.Json.string(new StringBuilder(), value).toString();
+    }
+
+    @Test
+    void escapesStrings() {
+        assertEquals("\"plain\"", string("plain"));
+        assertEquals("null", string(null));
+        assertEquals("\"say \\\"hi\\\"\"", string("say \"hi\""));
+        assertEquals("\"C:\\\\temp\"", string("C:\\temp"));
+        assertEquals("\"a\\nb\\rc\\td\"", string("a\nb\rc\td"));
+        assertEquals("\"\\u0001\"", string("\u0001"));
+    }
+
+    @Test
+    void readsBackWhatItWrites() throws ApiServer.ApiException {
+        String name = "Ada \"Countess\" Lovelace\\\n\t\u0002";
+        String body = "{\"name\":" + string(name) + "}";
+        assertEquals(Map.of("name", name), ApiServer.Json.parseObject(body));
+    }
+
+    @Test
+    void parsesFlatObjects() throws ApiServer.ApiException {
+        assertEquals(Map.of(), ApiServer.Json.parseObject(" { } "));
+        assertEquals(Map.of("name", "Ada", "type", "Student", "event", "12", "vip", "true"),
+                ApiServer.Json.parseObject("{ \"name\" : \"Ada\", \"type\":\"Student\",\n\"event\": 12, \"vip\": true }"));
+        assertEquals(Map.of("name", "é, ok"), ApiServer.Json.parseObject("{\"name\":\"\\u00e9, ok\"}"));
+    }
+
+    @Test
+    void nullIsNotTheTextNull() throws ApiServer.ApiException {
+        Map<String, String> body = ApiServer.Json.parseObject("{\"name\": null, \"type\": \"null\"}");
+        assertTrue(body.containsKey("name"));
+        assertNull(body.get("name"));
+        assertEquals("null", body.get("type"));
+    }
+
+    @Test
+    void rejectsMalformedInput() {
+        for (String body : new String[] {
+                "", "[]", "{", "{\"name\"}", "{\"name\":}", "{\"name\":\"Ada\"", "{\"name\":\"Ada}",
+                "{\"name\":\"Ada\",}", "{\"name\":\"Ada\"} trailing", "{name:\"Ada\"}", "{\"a\":\"\\u12\"}",
+                "{\"a\":\"\\uzzzz\"}", "{\"a\":\"x\\"}) {
+            ApiServer.ApiException e = assertThrows(ApiServer.ApiException.class,
+                    () -> ApiServer.Json.parseObject(body), body);
+            assertEquals(400, e.status, body);
+        }
+    }
+}
@@ -0,0 +1,102 @@
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Path;
+import java.sql.SQLException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class ApiServerTest {
+    private static final String TOKEN = "station-secret";
+
+    @TempDir
+    Path dir;
+
+    private AsyncDb db;
+    private RegistrationQueue registrations;
+    private ApiServer api;
+    private final HttpClient client = HttpClient.newHttpClient();
+
+    @BeforeEach
+    void start() throws Exception {
+        db = AsyncDb.open("jdbc:sqlite:" + dir.resolve("events.db"), StorageProfile.TUNED);
+        db.write("event.add", s -> s.prepare("INSERT INTO events (event_id, event_name, event_date, venue, organizer)"
+                + " VALUES (1, 'Open Day', '2026-03-02', 'Hall A', 'Dean')").executeUpdate()).join();
+        registrations = new RegistrationQueue(db);
+        System.setProperty("ems.api_token", TOKEN);
+        try {
+            api = ApiServer.start(db, registrations, 0);
+        } finally {
+            System.clearProperty("ems.api_token");
+        }
+    }
+
+    @AfterEach
+    void stop() throws SQLException {
+        api.close();
+        registrations.close();
+        db.close();
+    }
+
+    private HttpRequest.Builder request(String path) {
+        return HttpRequest.newBuilder(URI.create("http://127.0.0.1:" + api.port() + path))
+                .header("Authorization", "Bearer " + TOKEN);
+    }
+
+    private HttpResponse<String> send(HttpRequest request) throws Exception {
+        return client.send(request, HttpResponse.BodyHandlers.ofString());
+    }
+
+    private HttpResponse<String> register(String body) throws Exception {
+        return send(request("/api/events/1/participants").POST(HttpRequest.BodyPublishers.ofString(body)).build());
+    }
+
+    private long participants() {
+        return db.read("count", s -> {
+            try (var rs = s.prepare("SELECT COUNT(*) FROM participants").executeQuery()) {
+                return rs.next() ? rs.getLong(1) : -1;
+            }
+        }).join();
+    }
+
+    @Test
+    void refusesRequestsWithoutTheToken() throws Exception {
+        HttpResponse<String> response = send(HttpRequest.newBuilder(
+                URI.create("http://127.0.0.1:" + api.port() + "/api/events")).build());
+        assertEquals(401, response.statusCode());
+        assertEquals("Bearer", response.headers().firstValue("WWW-Authenticate").orElse(null));
+        assertEquals(401, send(request("/api/events").setHeader("Authorization", "Bearer wrong").build()).statusCode());
+    }
+
+    @Test
+    void registersAParticipant() throws Exception {
+        HttpResponse<String> response = register("{\"name\": \" Ada Lovelace \", \"type\": \"student\"}");
+        assertEquals(201, response.statusCode(), response.body());
+        assertTrue(response.body().contains("\"name\":\"Ada Lovelace\",\"type\":\"Student\""), response.body());
+        assertEquals(1, participants());
+    }
+
+    @Test
+    void rejectsANullOrBlankName() throws Exception {
+        assertEquals(400, register("{\"name\": null, \"type\": \"Student\"}").statusCode());
+        assertEquals(400, register("{\"name\": \"  \", \"type\": \"Student\"}").statusCode());
+        assertEquals(400, register("{\"type\": \"Student\"}").statusCode());
+        assertEquals(400, register("{\"name\": \"Ada\", \"type\": null}").statusCode());
+        assertEquals(0, participants());
+    }
+
+    @Test
+    void missingEventsAreNotFound() throws Exception {
+        assertEquals(404, send(request("/api/events/999").build()).statusCode());
+        assertEquals(404, send(request("/api/events/999/participants").build()).statusCode());
+        HttpResponse<String> response = send(request("/api/events/999/participants")
+                .POST(HttpRequest.BodyPublishers.ofString("{\"name\": \"Ada\", \"type\": \"Staff\"}")).build());
+        assertEquals(404, response.statusCode());
+        assertEquals(0, participants());
+    }
+}
@@ -0,0 +1,158 @@
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.nio.file.Path;
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class ArchiveTest {
+    private static final String CUTOFF = "2025-01-01";
+    private static final String ROLLUPS = "SELECT (SELECT group_concat(month || ':' || events || ':' || participants"
+            + " || ':' || students || ':' || staff, ',') FROM rollup_month)"
+            + " || '|' || (SELECT group_concat(venue || ':' || events || ':' || participants, ',') FROM rollup_venue)"
+            + " || '|' || (SELECT group_concat(organizer || ':' || events || ':' || participants, ',') FROM rollup_organizer)";
+
+    @TempDir
+    Path dir;
+
+    private AsyncDb db;
+    private Path archive;
+
+    @BeforeEach
+    void open() throws Exception {
+        db = AsyncDb.open("jdbc:sqlite:" + dir.resolve("events.db"), StorageProfile.TUNED);
+        archive = dir.resolve("events_archive.db");
+        // twelve past events a month apart and three far in the future, with i participants each
+        write("WITH RECURSIVE n(i) AS (SELECT 1 UNION ALL SELECT i + 1 FROM n WHERE i < 15)"
+                + " INSERT INTO events (event_id, event_name, event_date, venue, organizer)"
+                + " SELECT i, 'Event ' || i, CASE WHEN i <= 12 THEN date('2023-01-15', '+' || (i - 1) || ' months')"
+                + " ELSE date('2099-01-15', '+' || i || ' days') END, 'Hall ' || (i % 3), 'Dean' FROM n");
+        write("WITH RECURSIVE n(i) AS (SELECT 1 UNION ALL SELECT i + 1 FROM n WHERE i < 15),"
+                + " m(j) AS (SELECT 1 UNION ALL SELECT j + 1 FROM m WHERE j < 15)"
+                + " INSERT INTO participants (event_id, name, type)"
+                + " SELECT i, 'Person ' || i || '-' || j, CASE j % 3 WHEN 0 THEN 'Staff' WHEN 1 THEN 'Student' ELSE 'Guest' END"
+                + " FROM n JOIN m ON j <= i");
+    }
+
+    @AfterEach
+    void close() throws Exception {
+        db.close();
+    }
+
+    private void write(String sql) {
+        db.write("test", s -> s.prepare(sql).executeUpdate()).join();
+    }
+
+    private String text(String sql) {
+        return db.read("test", s -> {
+            try (ResultSet rs = s.prepare(sql).executeQuery()) {
+                return rs.next() ? rs.getString(1) : null;
+            }
+        }).join();
+    }
+
+    private long count(String sql) {
+        return Long.parseLong(text(sql));
+    }
+
+    private Archive.Moved archiveAll() {
+        Archive.Moved total = new Archive.Moved(0, 0);
+        while (true) {
+            Archive.Moved moved = db.write("test", s -> Archive.moveBatch(s, archive, CUTOFF)).join();
+            if (moved.events() == 0) return total;
+            total = total.plus(moved);
+        }
+    }
+
+    // every event the report walks, with its participant count, and the summary totals
+    private List<String> report(boolean withArchive) {
+        return db.write("test", s -> {
+            List<String> seen = new ArrayList<>();
+            ReportEngine.Listener listener = new ReportEngine.Listener() {
+                @Override
+                public void event(ReportEngine.Event event) {
+                }
+
+                @Override
+                public void participant(String name, String type) {
+                }
+
+                @Override
+                public void endEvent(ReportEngine.Event event, int total, Map<String, Integer> byType) {
+                    seen.add(event.id() + " " + event.date() + " " + total + " " + byType);
+                }
+
+                @Override
+                public void summary(ReportEngine.Summary summary) {
+                    seen.add(summary.totalEvents() + " events, " + summary.totalParticipants() + " participants, "
+                            + summary.upcoming().size() + " upcoming");
+                }
+            };
+            if (!withArchive) ReportEngine.run(s, listener, () -> false);
+            else Archive.withArchive(s, archive, a -> ReportEngine.run(a, listener, () -> false, true));
+            return seen;
+        }).join();
+    }
+
+    @Test
+    void movesPastEventsAndTheirParticipants() {
+        Archive.Moved moved = archiveAll();
+
+        assertEquals(12, moved.events());
+        assertEquals(12 * 13 / 2, moved.participants());
+        assertEquals(3, count("SELECT COUNT(*) FROM events"));
+        assertEquals(0, count("SELECT COUNT(*) FROM events WHERE event_date < '" + CUTOFF + "'"));
+        assertEquals(13 + 14 + 15, count("SELECT COUNT(*) FROM participants"));
+        assertTrue(Archive.exists(archive));
+        long archived = db.write("test", s -> Archive.withArchive(s, archive, a -> {
+            try (ResultSet rs = a.prepare("SELECT (SELECT COUNT(*) FROM archive.events) * 1000"
+                    + " + (SELECT COUNT(*) FROM archive.participants)").executeQuery()) {
+                return rs.next() ? rs.getLong(1) : -1;
+            }
+        })).join();
+        assertEquals(12 * 1000 + 12 * 13 / 2, archived);
+    }
+
+    @Test
+    void countersAndRollupsKeepTheHistory() {
+        String rollups = text(ROLLUPS);
+        archiveAll();
+        assertEquals(rollups, text(ROLLUPS));
+        // the events left behind still count their own participants
+        assertEquals("13:13,14:14,15:15", text("SELECT group_concat(event_id || ':' || participant_count, ',') FROM events"));
+    }
+
+    @Test
+    void theArchiveReportMatchesTheReportBeforeArchiving() {
+        List<String> before = report(false);
+        archiveAll();
+
+        assertEquals(before, report(true));
+        // without the archive only the upcoming events are left
+        assertEquals("3 events, 42 participants, 3 upcoming", report(false).get(3));
+    }
+
+    @Test
+    void anEventInBothFilesCountsOnce() {
+        List<String> before = report(false);
+        db.write("test", s -> Archive.moveBatch(s, archive, "2023-03-01")).join();
+        // a crash between the copy and the delete: event 3 is copied and still in the hot file
+        db.write("test", s -> Archive.withArchive(s, archive, a -> {
+            a.prepare("INSERT INTO archive.events SELECT event_id, event_name, event_date, venue, organizer,"
+                    + " start_time, end_time, participant_count, student_count, staff_count"
+                    + " FROM main.events WHERE event_id = 3").executeUpdate();
+            return a.prepare("INSERT INTO archive.participants SELECT id, event_id, name, type"
+                    + " FROM main.participants WHERE event_id = 3").executeUpdate();
+        })).join();
+
+        assertEquals(before, report(true));
+        // and the next run moves it over its own copy
+        archiveAll();
+        assertEquals(before, report(true));
+    }
+}
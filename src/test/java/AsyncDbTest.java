@@ -0,0 +1,37 @@
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.nio.file.Path;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class AsyncDbTest {
+    @TempDir
+    Path dir;
+
+    @Test
+    void closeLetsRunningTasksFinishFirst() throws Exception {
+        AsyncDb db = AsyncDb.open("jdbc:sqlite:" + dir.resolve("events.db"), StorageProfile.TUNED);
+        CountDownLatch started = new CountDownLatch(1);
+        // a query sqlite does not stop for an interrupt, still running when close is called
+        CompletableFuture<Long> slow = db.readInBackground("slow", s -> {
+            started.countDown();
+            try (var rs = s.prepare("WITH RECURSIVE n(i) AS (SELECT 1 UNION ALL SELECT i + 1 FROM n WHERE i < 3000000)"
+                    + " SELECT SUM(i) FROM n").executeQuery()) {
+                return rs.next() ? rs.getLong(1) : -1;
+            }
+        });
+        started.await();
+        db.close();
+        assertEquals(3000000L * 3000001L / 2, slow.join());
+    }
+
+    @Test
+    void refusesWorkAfterClose() throws Exception {
+        AsyncDb db = AsyncDb.open("jdbc:sqlite:" + dir.resolve("events.db"), StorageProfile.TUNED);
+        db.close();
+        assertThrows(RejectedExecutionException.class, () -> db.read("late", s -> 1));
+    }
+}
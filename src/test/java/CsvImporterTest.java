@@ -0,0 +1,144 @@
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class CsvImporterTest {
+    @TempDir
+    Path dir;
+
+    private Connection conn;
+    private StatementCache statements;
+
+    @BeforeEach
+    void open() throws SQLException {
+        conn = DriverManager.getConnection("jdbc:sqlite:" + dir.resolve("events.db"));
+        Schema.init(conn);
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute("INSERT INTO events (event_id, event_name, event_date, venue, organizer)"
+                    + " VALUES (1, 'Open Day', '2026-03-02', 'Hall A', 'Dean')");
+        }
+        statements = new StatementCache(conn, StatementCache.DEFAULT_CAPACITY);
+    }
+
+    @AfterEach
+    void close() throws SQLException {
+        conn.close();
+    }
+
+    private long count(String sql) throws SQLException {
+        try (Statement stmt = conn.createStatement(); ResultSet rs = stmt.executeQuery(sql)) {
+            return rs.next() ? rs.getLong(1) : -1;
+        }
+    }
+
+    // more rows than one batch, so some are already executed when the failure comes
+    private static String rows(int n) {
+        StringBuilder sb = new StringBuilder("name,type,event\n");
+        for (int i = 0; i < n; i++) {
+            sb.append("Person ").append(i).append(i % 2 == 0 ? ",Student,1\n" : ",staff,Open Day\n");
+        }
+        return sb.toString();
+    }
+
+    @Test
+    void validRowsCommitAndRejectedRowsAreListed() throws Exception {
+        Path file = dir.resolve("participants.csv");
+        Files.writeString(file, "name,type,event\n"
+                + "\"Lovelace, Ada\",Student,Open Day\n"
+                + "Grace Hopper,Staff,1\n"
+                + ",Student,1\n"
+                + "Alan Turing,Visitor,1\n"
+                + "Edsger Dijkstra,Staff,Closed Day\n"
+                + "too,few\n");
+        CsvImporter.Result result = new CsvImporter(statements).importFile(file);
+
+        assertEquals(2, result.imported());
+        assertEquals(4, result.rejected());
+        assertEquals(List.of("line 4: name is empty", "line 5: type must be Student or Staff",
+                "line 6: unknown event 'Closed Day'", "line 7: expected 3 columns but found 2"), result.errors());
+        assertEquals(2, count("SELECT COUNT(*) FROM participants"));
+        assertEquals(1, count("SELECT COUNT(*) FROM participants WHERE name = 'Lovelace, Ada'"));
+        assertEquals(2, count("SELECT participant_count FROM events WHERE event_id = 1"));
+        assertTrue(conn.getAutoCommit());
+    }
+
+    @Test
+    void databaseErrorMidFileImportsNothing() throws Exception {
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute("CREATE TRIGGER refuse BEFORE INSERT ON participants WHEN NEW.name = 'Person 900'"
+                    + " BEGIN SELECT RAISE(ABORT, 'refused'); END");
+        }
+        Path file = dir.resolve("participants.csv");
+        Files.writeString(file, rows(1200));
+
+        SQLException e = assertThrows(SQLException.class, () -> new CsvImporter(statements).importFile(file));
+        assertTrue(e.getMessage().contains("nothing was imported"), e.getMessage());
+        assertEquals(0, count("SELECT COUNT(*) FROM participants"));
+        assertEquals(0, count("SELECT participant_count FROM events WHERE event_id = 1"));
+        assertTrue(conn.getAutoCommit());
+    }
+
+    @Test
+    void readErrorMidFileImportsNothing() throws Exception {
+        Path file = dir.resolve("participants.csv");
+        byte[] good = rows(1200).getBytes(StandardCharsets.UTF_8);
+        // a byte that is not utf-8 after the first batches were written
+        byte[] bad = new byte[good.length + 2];
+        System.arraycopy(good, 0, bad, 0, good.length);
+        bad[good.length] = (byte) 0xC3;
+        bad[good.length + 1] = (byte) 0x28;
+        Files.write(file, bad);
+
+        IOException e = assertThrows(IOException.class, () -> new CsvImporter(statements).importFile(file));
+        assertTrue(e.getMessage().contains("nothing was imported"), e.getMessage());
+        assertEquals(0, count("SELECT COUNT(*) FROM participants"));
+        assertTrue(conn.getAutoCommit());
+    }
+
+    @Test
+    void splitsPlainFields() {
+        assertEquals(List.of("Ada Lovelace", "Student", "3"), CsvImporter.parse("Ada Lovelace,Student,3"));
+    }
+
+    @Test
+    void keepsEmptyFields() {
+        assertEquals(List.of("", "Staff", ""), CsvImporter.parse(",Staff,"));
+        assertEquals(List.of(""), CsvImporter.parse(""));
+    }
+
+    @Test
+    void quotedFieldsMayHoldCommas() {
+        assertEquals(List.of("Lovelace, Ada", "Student"), CsvImporter.parse("\"Lovelace, Ada\",Student"));
+        assertEquals(List.of("a,b,c"), CsvImporter.parse("\"a,b,c\""));
+    }
+
+    @Test
+    void doubledQuotesAreOneQuote() {
+        assertEquals(List.of("Ada \"The Countess\" Lovelace", "Staff"),
+                CsvImporter.parse("\"Ada \"\"The Countess\"\" Lovelace\",Staff"));
+        assertEquals(List.of("\""), CsvImporter.parse("\"\"\"\""));
+    }
+
+    @Test
+    void quotesOnlyPartOfAField() {
+        assertEquals(List.of("Dr Ada, PhD", "Staff"), CsvImporter.parse("Dr \"Ada, PhD\",Staff"));
+    }
+
+    @Test
+    void unclosedQuoteRunsToTheEnd() {
+        assertEquals(List.of("Ada,Student"), CsvImporter.parse("\"Ada,Student"));
+    }
+}
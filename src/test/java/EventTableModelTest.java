@@ -0,0 +1,172 @@
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.nio.file.Path;
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class EventTableModelTest {
+    private static final int EVENTS = 250;
+    private static final String BY_PARTICIPANTS = "participant_count DESC, event_id DESC";
+
+    @TempDir
+    Path dir;
+
+    private AsyncDb db;
+    private final AtomicReference<Throwable> failed = new AtomicReference<>();
+    private EventTableModel model;
+
+    @BeforeEach
+    void open() throws Exception {
+        db = AsyncDb.open("jdbc:sqlite:" + dir.resolve("events.db"), StorageProfile.TUNED);
+        // three pages, participant counts in no particular order
+        write("WITH RECURSIVE n(i) AS (SELECT 1 UNION ALL SELECT i + 1 FROM n WHERE i < " + EVENTS + ")"
+                + " INSERT INTO events (event_id, event_name, event_date, venue, organizer, participant_count)"
+                + " SELECT i, 'Event ' || i, date('2026-01-01', '+' || i || ' days'), 'Hall', 'Dean', (i * 37) % 101"
+                + " FROM n");
+        model = onEdt(() -> new EventTableModel(db, failed::set));
+        await(model::refresh);
+    }
+
+    @AfterEach
+    void close() throws Exception {
+        db.close();
+        assertNull(failed.get());
+    }
+
+    // the model belongs to the EDT
+    private static <T> T onEdt(Supplier<T> task) {
+        return CompletableFuture.supplyAsync(task, AsyncDb.EDT).join();
+    }
+
+    private static void await(Supplier<CompletableFuture<Void>> task) {
+        CompletableFuture.supplyAsync(task, AsyncDb.EDT).thenCompose(done -> done).join();
+    }
+
+    private void write(String sql) {
+        db.write("test", s -> s.prepare(sql).executeUpdate()).join();
+    }
+
+    private List<Integer> expected(String order) {
+        return db.read("test", s -> {
+            List<Integer> ids = new ArrayList<>();
+            try (ResultSet rs = s.prepare("SELECT event_id FROM events ORDER BY " + order).executeQuery()) {
+                while (rs.next()) ids.add(rs.getInt(1));
+            }
+            return ids;
+        }).join();
+    }
+
+    // ids in the given rows, the pages have to be loaded
+    private List<Integer> shown(int from, int to) {
+        return onEdt(() -> {
+            List<Integer> ids = new ArrayList<>();
+            for (int row = from; row < to; row++) {
+                EventTableModel.EventRow r = model.getRow(row);
+                ids.add(r == null ? null : r.id());
+            }
+            return ids;
+        });
+    }
+
+    private void sortByParticipantsDescending() {
+        onEdt(() -> {
+            model.sortBy(6);
+            model.sortBy(6);
+            return null;
+        });
+        await(model::refresh);
+    }
+
+    @Test
+    void pagesFollowTheSortOrder() {
+        assertEquals(EVENTS, (int) onEdt(model::getRowCount));
+        // the first page, then keyset pages after it
+        for (int row = 0; row < EVENTS; row += EventTableModel.PAGE_SIZE) {
+            int from = row;
+            await(() -> model.fetch(from));
+        }
+        assertEquals(expected("event_id"), shown(0, EVENTS));
+
+        sortByParticipantsDescending();
+        // straight to the last page, no anchor so by offset, then the rest
+        await(() -> model.fetch(200));
+        await(() -> model.fetch(0));
+        await(() -> model.fetch(100));
+        assertEquals(expected(BY_PARTICIPANTS), shown(0, EVENTS));
+    }
+
+    @Test
+    void updatesARowInPlace() {
+        await(() -> model.fetch(0));
+        write("UPDATE events SET event_name = 'Renamed' WHERE event_id = 5");
+        await(() -> model.reload(List.of(5)));
+        // patched into the loaded page, nothing to fetch
+        assertEquals("Renamed", onEdt(() -> model.getRow(4)).name());
+        assertEquals(EVENTS, (int) onEdt(model::getRowCount));
+    }
+
+    @Test
+    void removesADeletedRow() {
+        await(() -> model.fetch(0));
+        write("DELETE FROM events WHERE event_id = 3");
+        await(() -> model.reload(List.of(3)));
+        assertEquals(EVENTS - 1, (int) onEdt(model::getRowCount));
+        await(() -> model.fetch(0));
+        assertEquals(expected("event_id").subList(0, 100), shown(0, 100));
+    }
+
+    @Test
+    void movesARowToItsNewPosition() {
+        sortByParticipantsDescending();
+        await(() -> model.fetch(0));
+        int id = expected(BY_PARTICIPANTS).get(50);
+        write("UPDATE events SET participant_count = 0 WHERE event_id = " + id);
+        await(() -> model.reload(List.of(id)));
+        await(() -> model.fetch(0));
+        await(() -> model.fetch(100));
+        assertEquals(expected(BY_PARTICIPANTS).subList(0, 200), shown(0, 200));
+    }
+
+    @Test
+    void rowFromAnUnloadedPageClimbsIntoALoadedOne() {
+        sortByParticipantsDescending();
+        // the first and last pages are loaded, the middle one never was
+        await(() -> model.fetch(0));
+        await(() -> model.fetch(200));
+        int id = expected(BY_PARTICIPANTS).get(150);
+        write("UPDATE events SET participant_count = 1000 WHERE event_id = " + id);
+        await(() -> model.reload(List.of(id)));
+
+        await(() -> model.fetch(0));
+        await(() -> model.fetch(200));
+        List<Integer> order = expected(BY_PARTICIPANTS);
+        assertEquals(id, order.get(0));
+        assertEquals(order.subList(0, 100), shown(0, 100));
+        assertEquals(order.subList(200, EVENTS), shown(200, EVENTS));
+    }
+
+    @Test
+    void rowFromAnUnloadedPageSinksIntoALoadedOne() {
+        sortByParticipantsDescending();
+        await(() -> model.fetch(0));
+        await(() -> model.fetch(200));
+        int id = expected(BY_PARTICIPANTS).get(150);
+        write("UPDATE events SET participant_count = -1 WHERE event_id = " + id);
+        await(() -> model.reload(List.of(id)));
+
+        await(() -> model.fetch(0));
+        await(() -> model.fetch(200));
+        List<Integer> order = expected(BY_PARTICIPANTS);
+        assertEquals(id, order.get(EVENTS - 1));
+        assertEquals(order.subList(0, 100), shown(0, 100));
+        assertEquals(order.subList(200, EVENTS), shown(200, EVENTS));
+    }
+}
@@ -0,0 +1,89 @@
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class IntervalTreeTest {
+    // an avl tree of n nodes is never more than about 1.44 log2(n) levels high
+    private static void assertBalanced(IntervalTree tree) {
+        int n = tree.size();
+        double bound = 1.45 * (Math.log(n + 2) / Math.log(2));
+        assertTrue(tree.height() <= bound, "height " + tree.height() + " for " + n + " intervals");
+    }
+
+    private static List<Integer> ids(List<IntervalTree.Interval> intervals) {
+        return intervals.stream().map(IntervalTree.Interval::id).toList();
+    }
+
+    @Test
+    void staysBalancedOnAscendingInserts() {
+        IntervalTree tree = new IntervalTree();
+        for (int i = 0; i < 1000; i++) {
+            tree.insert(new IntervalTree.Interval(i * 10, i * 10 + 5, i));
+            assertBalanced(tree);
+        }
+        assertEquals(1000, tree.size());
+    }
+
+    @Test
+    void staysBalancedOnDescendingInserts() {
+        IntervalTree tree = new IntervalTree();
+        for (int i = 999; i >= 0; i--) {
+            tree.insert(new IntervalTree.Interval(i * 10, i * 10 + 5, i));
+        }
+        assertBalanced(tree);
+        assertEquals(List.of(0, 1, 2), ids(tree.overlapping(0, 25)));
+    }
+
+    @Test
+    void staysBalancedAfterRemovingHalf() {
+        IntervalTree tree = new IntervalTree();
+        for (int i = 0; i < 1000; i++) tree.insert(new IntervalTree.Interval(i * 10, i * 10 + 5, i));
+        // removing everything from one side forces rotations back the other way
+        for (int i = 0; i < 500; i++) {
+            assertTrue(tree.remove(i * 10, i));
+            assertBalanced(tree);
+        }
+        assertEquals(500, tree.size());
+        assertEquals(List.of(), tree.overlapping(0, 5000));
+        assertEquals(List.of(500, 501), ids(tree.overlapping(5000, 5015)));
+    }
+
+    @Test
+    void removeNeedsStartAndId() {
+        IntervalTree tree = new IntervalTree();
+        tree.insert(new IntervalTree.Interval(100, 200, 1));
+        tree.insert(new IntervalTree.Interval(100, 150, 2));
+        assertFalse(tree.remove(100, 3));
+        assertFalse(tree.remove(101, 1));
+        assertTrue(tree.remove(100, 1));
+        assertEquals(List.of(2), ids(tree.overlapping(0, 1000)));
+        assertTrue(tree.remove(100, 2));
+        assertEquals(0, tree.size());
+        assertEquals(0, tree.height());
+    }
+
+    @Test
+    void touchingIntervalsDoNotOverlap() {
+        IntervalTree tree = new IntervalTree();
+        tree.insert(new IntervalTree.Interval(100, 200, 1));
+        // half open, ending where the booking starts or starting where it ends is free
+        assertEquals(List.of(), tree.overlapping(50, 100));
+        assertEquals(List.of(), tree.overlapping(200, 300));
+        assertEquals(List.of(1), ids(tree.overlapping(50, 101)));
+        assertEquals(List.of(1), ids(tree.overlapping(199, 300)));
+        assertEquals(List.of(1), ids(tree.overlapping(120, 130)));
+        assertEquals(List.of(1), ids(tree.overlapping(0, 1000)));
+    }
+
+    @Test
+    void overlappingComesBackInStartOrder() {
+        IntervalTree tree = new IntervalTree();
+        tree.insert(new IntervalTree.Interval(300, 400, 3));
+        tree.insert(new IntervalTree.Interval(0, 1000, 1));
+        tree.insert(new IntervalTree.Interval(150, 250, 2));
+        tree.insert(new IntervalTree.Interval(500, 600, 4));
+        assertEquals(List.of(1, 2, 3), ids(tree.overlapping(200, 350)));
+        assertEquals(List.of(1, 4), ids(tree.overlapping(450, 550)));
+    }
+}
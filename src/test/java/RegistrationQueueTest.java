@@ -0,0 +1,118 @@
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.nio.file.Path;
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class RegistrationQueueTest {
+    private static final int REGISTRATIONS = 400;
+
+    @TempDir
+    Path dir;
+
+    private AsyncDb db;
+    private RegistrationQueue queue;
+
+    @BeforeEach
+    void open() throws Exception {
+        db = AsyncDb.open("jdbc:sqlite:" + dir.resolve("events.db"), StorageProfile.TUNED);
+        write("INSERT INTO events (event_id, event_name, event_date, venue, organizer)"
+                + " VALUES (1, 'Open Day', '2026-05-01', 'Hall', 'Dean'), (2, 'Gala', '2026-06-01', 'Hall', 'Dean')");
+        queue = new RegistrationQueue(db);
+    }
+
+    @AfterEach
+    void close() throws Exception {
+        queue.close();
+        db.close();
+    }
+
+    private void write(String sql) {
+        db.write("test", s -> s.prepare(sql).executeUpdate()).join();
+    }
+
+    private long count(String sql) {
+        return db.read("test", s -> {
+            try (ResultSet rs = s.prepare(sql).executeQuery()) {
+                return rs.next() ? rs.getLong(1) : -1;
+            }
+        }).join();
+    }
+
+    @Test
+    void aRushCommitsInFewerBatchesThanRegistrations() throws Exception {
+        List<CompletableFuture<Long>> futures = new ArrayList<>();
+        List<Thread> desks = new ArrayList<>();
+        // four check-in desks at once
+        for (int d = 0; d < 4; d++) {
+            int desk = d;
+            desks.add(Thread.ofVirtual().start(() -> {
+                for (int i = 0; i < REGISTRATIONS / 4; i++) {
+                    CompletableFuture<Long> f = queue.submit(1, "Desk " + desk + " #" + i, i % 2 == 0 ? "Student" : "Staff");
+                    synchronized (futures) {
+                        futures.add(f);
+                    }
+                }
+            }));
+        }
+        for (Thread t : desks) t.join();
+
+        HashSet<Long> ids = new HashSet<>();
+        for (CompletableFuture<Long> f : futures) ids.add(f.join());
+        assertEquals(REGISTRATIONS, ids.size());
+        assertFalse(ids.contains(null));
+        // acknowledged means committed, readable from another connection straight away
+        assertEquals(REGISTRATIONS, count("SELECT COUNT(*) FROM participants WHERE event_id = 1"));
+        assertEquals(REGISTRATIONS, count("SELECT participant_count FROM events WHERE event_id = 1"));
+        assertEquals(REGISTRATIONS, queue.saved());
+        assertEquals(0, queue.pending());
+        assertTrue(queue.batches() < REGISTRATIONS, "batches " + queue.batches());
+    }
+
+    @Test
+    void aDeletedEventGetsNoRowAndANullId() {
+        write("DELETE FROM events WHERE event_id = 2");
+        CompletableFuture<Long> gone = queue.submit(2, "Late", "Student");
+        CompletableFuture<Long> kept = queue.submit(1, "Early", "Student");
+        CompletableFuture<Long> missing = queue.submit(99, "Lost", "Staff");
+
+        assertNull(gone.join());
+        assertNull(missing.join());
+        assertNotNull(kept.join());
+        assertEquals(1, count("SELECT COUNT(*) FROM participants"));
+        assertEquals(1, queue.saved());
+    }
+
+    @Test
+    void theWriterGoesBackToTheProfilesSyncSetting() {
+        queue.submit(1, "Early", "Student").join();
+        // NORMAL, as the tuned profile set it, not the FULL the batch committed with
+        long synchronous = db.write("test", s -> {
+            try (ResultSet rs = s.prepare("PRAGMA synchronous").executeQuery()) {
+                return rs.next() ? rs.getLong(1) : -1;
+            }
+        }).join();
+        assertEquals(1, synchronous);
+    }
+
+    @Test
+    void closeCommitsWhatIsQueuedAndRefusesMore() {
+        List<CompletableFuture<Long>> futures = new ArrayList<>();
+        for (int i = 0; i < 50; i++) futures.add(queue.submit(1, "Guest " + i, "Student"));
+        queue.close();
+        for (CompletableFuture<Long> f : futures) assertNotNull(f.getNow(null));
+        assertEquals(50, count("SELECT COUNT(*) FROM participants"));
+
+        CompletableFuture<Long> late = queue.submit(1, "Too late", "Student");
+        CompletionException e = assertThrows(CompletionException.class, late::join);
+        assertInstanceOf(IllegalStateException.class, e.getCause());
+    }
+}
@@ -0,0 +1,132 @@
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class ReportCacheTest {
+    private static final int EVENTS = 40;
+
+    // collects the report the way a document sink does, summary put back at the mark
+    private static final class Buffer implements TextReport.Sink {
+        private final StringBuilder text = new StringBuilder();
+        private int mark;
+
+        @Override
+        public void append(String s) {
+            text.append(s);
+        }
+
+        @Override
+        public void mark() {
+            mark = text.length();
+        }
+
+        @Override
+        public void insertAtMark(String s) {
+            text.insert(mark, s);
+        }
+
+        // the time of the run is the one line two runs can differ in
+        @Override
+        public String toString() {
+            return text.toString().replaceAll("Generated On : .*", "");
+        }
+    }
+
+    private Connection conn;
+    private Statement stmt;
+    private StatementCache statements;
+    private final ReportCache cache = new ReportCache();
+
+    @BeforeEach
+    void open() throws SQLException {
+        conn = DriverManager.getConnection("jdbc:sqlite::memory:");
+        Schema.init(conn);
+        stmt = conn.createStatement();
+        statements = new StatementCache(conn, 32);
+        // past and upcoming events, a few without anyone registered
+        stmt.execute("WITH RECURSIVE n(i) AS (SELECT 1 UNION ALL SELECT i + 1 FROM n WHERE i < " + EVENTS + ")"
+                + " INSERT INTO events (event_id, event_name, event_date, venue, organizer)"
+                + " SELECT i, 'Event ' || i, date('2025-01-01', '+' || ((i * 17) % 900) || ' days'), 'Hall', 'Dean' FROM n");
+        stmt.execute("WITH RECURSIVE n(i) AS (SELECT 1 UNION ALL SELECT i + 1 FROM n WHERE i < 400)"
+                + " INSERT INTO participants (event_id, name, type)"
+                + " SELECT (i * 7) % (" + EVENTS + " - 5) + 1, 'Person ' || i,"
+                + " CASE i % 4 WHEN 0 THEN 'Staff' WHEN 3 THEN 'Guest' ELSE 'Student' END FROM n");
+    }
+
+    @AfterEach
+    void close() throws SQLException {
+        statements.close();
+        conn.close();
+    }
+
+    // the cached run has to match a full pass over the report query, summary included
+    private void assertSameAsFullRun() throws Exception {
+        Buffer cached = new Buffer();
+        ReportEngine.Summary summary = cache.render(statements, "kalokoh", cached, () -> false);
+        Buffer full = new Buffer();
+        ReportEngine.Summary expected = ReportEngine.run(statements, new TextReport("kalokoh", full), () -> false);
+        assertEquals(full.toString(), cached.toString());
+        assertEquals(expected, summary);
+    }
+
+    @Test
+    void unchangedRunsRepeatTheReport() throws Exception {
+        assertSameAsFullRun();
+        assertSameAsFullRun();
+        assertSameAsFullRun();
+    }
+
+    @Test
+    void followsEachKindOfWrite() throws Exception {
+        assertSameAsFullRun();
+        stmt.execute("INSERT INTO participants (event_id, name, type) VALUES (5, 'Aaron New', 'Staff')");
+        assertSameAsFullRun();
+        // a new date moves the event elsewhere in the report
+        stmt.execute("UPDATE events SET event_name = 'Renamed', event_date = '2099-01-01' WHERE event_id = 17");
+        assertSameAsFullRun();
+        stmt.execute("DELETE FROM participants WHERE event_id = 20");
+        stmt.execute("DELETE FROM events WHERE event_id = 20");
+        assertSameAsFullRun();
+        stmt.execute("INSERT INTO events (event_name, event_date, venue, organizer) VALUES ('Brand new', '2024-06-01', 'v', 'o')");
+        assertSameAsFullRun();
+        // a first participant for an event that had none
+        stmt.execute("INSERT INTO participants (event_id, name, type) VALUES (" + EVENTS + ", 'Zoe Last', 'Visitor')");
+        assertSameAsFullRun();
+        stmt.execute("UPDATE participants SET name = 'Aaron Renamed', type = 'Guest' WHERE name = 'Aaron New'");
+        assertSameAsFullRun();
+    }
+
+    @Test
+    void manyChangesAtOnceStillMatch() throws Exception {
+        assertSameAsFullRun();
+        // more than a quarter of the events, one pass over everything instead
+        stmt.execute("UPDATE participants SET type = 'Student' WHERE type = 'Staff'");
+        stmt.execute("UPDATE events SET venue = 'Annex' WHERE event_id % 2 = 0");
+        assertSameAsFullRun();
+        stmt.execute("INSERT INTO participants (event_id, name, type) VALUES (1, 'After', 'Staff')");
+        assertSameAsFullRun();
+    }
+
+    @Test
+    void aTrimmedChangeLogStartsOver() throws Exception {
+        assertSameAsFullRun();
+        stmt.execute("UPDATE events SET organizer = 'Provost' WHERE event_id = 3");
+        // what the cache would have read next is gone
+        stmt.execute("DELETE FROM event_changes");
+        stmt.execute("UPDATE events SET organizer = 'Registrar' WHERE event_id = 4");
+        assertSameAsFullRun();
+    }
+
+    @Test
+    void aCancelledRunCachesNothing() throws Exception {
+        assertNull(cache.render(statements, "kalokoh", new Buffer(), () -> true));
+        stmt.execute("DELETE FROM participants WHERE event_id = 1");
+        assertSameAsFullRun();
+    }
+}
@@ -0,0 +1,172 @@
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+import java.util.zip.InflaterOutputStream;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class ReportExportTest {
+    private static final String AWKWARD = "Chess, \"Open\" <Finals> & more";
+
+    @TempDir
+    Path dir;
+
+    private Connection conn;
+    private StatementCache statements;
+
+    @BeforeEach
+    void open() throws SQLException {
+        conn = DriverManager.getConnection("jdbc:sqlite::memory:");
+        Schema.init(conn);
+        statements = new StatementCache(conn, 32);
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute("INSERT INTO events (event_id, event_name, event_date, venue, organizer) VALUES"
+                    + " (1, 'Chess, \"Open\" <Finals> & more', '2024-03-01', 'Hall A', 'O''Brien'),"
+                    + " (2, 'Empty Talk', '2024-04-01', 'Room 2', 'Dean'),"
+                    + " (3, 'Graduation', '2099-07-01', 'Stadium', 'Registrar')");
+            stmt.execute("WITH RECURSIVE n(i) AS (SELECT 1 UNION ALL SELECT i + 1 FROM n WHERE i < 120)"
+                    + " INSERT INTO participants (event_id, name, type) SELECT CASE WHEN i <= 2 THEN 1 ELSE 3 END,"
+                    + " printf('Person %03d', i), CASE i % 3 WHEN 0 THEN 'Staff' WHEN 1 THEN 'Student' ELSE 'Guest' END FROM n");
+            stmt.execute("INSERT INTO participants (event_id, name, type) VALUES (1, 'Smith, \"Jo\"', 'Staff')");
+        }
+    }
+
+    @AfterEach
+    void close() throws SQLException {
+        statements.close();
+        conn.close();
+    }
+
+    private Path export(String file) throws Exception {
+        Path target = dir.resolve(file);
+        AtomicLong progress = new AtomicLong();
+        ReportEngine.Summary summary = ReportExport.run(statements, target, "kalokoh", () -> false, progress, false);
+        assertEquals(3, summary.totalEvents());
+        assertEquals(121, summary.totalParticipants());
+        assertEquals(ReportExport.size(statements), progress.get());
+        // the side files are gone once the report is in place
+        try (Stream<Path> files = Files.list(dir)) {
+            assertEquals(List.of(target), files.toList());
+        }
+        return target;
+    }
+
+    @Test
+    void csvHasARowPerParticipantThatReadsBack() throws Exception {
+        List<String> lines = Files.readString(export("report.csv")).lines().toList();
+
+        assertEquals("event_id,event_name,event_date,venue,organizer,participant_name,participant_type", lines.get(0));
+        // every participant, and one row for the event without any
+        assertEquals(1 + 121 + 1, lines.size());
+        List<String> first = CsvImporter.parse(lines.get(1));
+        assertEquals(List.of("1", AWKWARD, "2024-03-01", "Hall A", "O'Brien", "Person 001", "Student"), first);
+        assertTrue(lines.contains("1,\"Chess, \"\"Open\"\" <Finals> & more\",2024-03-01,Hall A,O'Brien,\"Smith, \"\"Jo\"\"\",Staff"));
+        assertEquals(List.of("2", "Empty Talk", "2024-04-01", "Room 2", "Dean", "", ""), CsvImporter.parse(lines.get(4)));
+        for (String line : lines) assertEquals(7, CsvImporter.parse(line).size(), line);
+    }
+
+    @Test
+    void htmlEscapesAndPutsTheSummaryFirst() throws Exception {
+        String html = Files.readString(export("report.html"));
+
+        assertTrue(html.startsWith("<!DOCTYPE html>"));
+        assertTrue(html.endsWith("</body>\n</html>\n"));
+        assertTrue(html.contains("<h3>Chess, &quot;Open&quot; &lt;Finals&gt; &amp; more</h3>"));
+        assertTrue(html.contains("organized by O&#39;Brien"));
+        assertFalse(html.contains("<Finals>"));
+        assertTrue(html.contains("<p>Total participants: 3, Guest: 1, Staff: 1, Student: 1</p>"));
+        assertTrue(html.contains("<p>No participants registered.</p>"));
+
+        int summary = html.indexOf("<h2>Summary Statistics</h2>");
+        int details = html.indexOf("<h2>Detailed Event Breakdown</h2>");
+        assertTrue(summary > html.indexOf("<p class=\"meta\">Generated by kalokoh on "));
+        assertTrue(summary < details);
+        assertTrue(html.contains("<tr><th>Total participants</th><td>121</td></tr>"));
+        assertTrue(html.contains("<tr><td>Graduation</td><td>2099-07-01</td><td>Stadium</td><td>Registrar</td></tr>"));
+    }
+
+    @Test
+    void textPutsTheSummaryAheadOfTheEvents() throws Exception {
+        String text = Files.readString(export("report.txt"));
+
+        int summary = text.indexOf("SUMMARY STATISTICS");
+        int details = text.indexOf("Event: " + AWKWARD);
+        assertTrue(summary > text.indexOf("Generated By : kalokoh"));
+        assertTrue(summary < details);
+        assertTrue(text.contains("Total Events        : 3\n"));
+        assertTrue(text.contains("Total Participants : 121\n"));
+        assertTrue(text.contains("Event Name : Graduation\n"));
+        assertTrue(text.contains("  - Guest: 1\n  - Staff: 1\n  - Student: 1\n"));
+        assertTrue(text.contains("   • Smith, \"Jo\" (Staff)\n"));
+    }
+
+    @Test
+    void pdfIsAWholeDocumentWithTheSummaryOnPageOne() throws Exception {
+        byte[] bytes = Files.readAllBytes(export("report.pdf"));
+        String pdf = new String(bytes, StandardCharsets.ISO_8859_1);
+
+        assertTrue(pdf.startsWith("%PDF-1.4\n"));
+        assertTrue(pdf.endsWith("%%EOF\n"));
+        // the cross-reference table points at every object
+        Matcher startxref = Pattern.compile("startxref\n(\\d+)\n%%EOF\n$").matcher(pdf);
+        assertTrue(startxref.find());
+        int xref = Integer.parseInt(startxref.group(1));
+        assertTrue(pdf.startsWith("xref\n0 ", xref));
+        String[] entries = pdf.substring(xref).split("\n");
+        int objects = Integer.parseInt(entries[1].substring(2)) - 1;
+        for (int i = 1; i <= objects; i++) {
+            int offset = Integer.parseInt(entries[2 + i].substring(0, 10));
+            assertTrue(pdf.startsWith(i + " 0 obj\n", offset), "object " + i);
+        }
+
+        // 120 participants do not fit one page
+        Matcher pages = Pattern.compile("/Count (\\d+) /Kids \\[(\\d+) 0 R").matcher(pdf);
+        assertTrue(pages.find());
+        assertTrue(Integer.parseInt(pages.group(1)) > 2);
+        String first = content(pdf, bytes, Integer.parseInt(pages.group(2)));
+        assertTrue(first.contains("(SUMMARY STATISTICS) Tj"));
+        assertTrue(first.contains("(Total Participants : 121) Tj"));
+    }
+
+    @Test
+    void aCancelledExportLeavesNothingBehind() throws Exception {
+        Path target = dir.resolve("report.pdf");
+        Files.writeString(target, "the last export");
+        assertNull(ReportExport.run(statements, target, "kalokoh", () -> true, new AtomicLong(), false));
+        try (Stream<Path> files = Files.list(dir)) {
+            assertEquals(List.of(target), files.toList());
+        }
+        assertEquals("the last export", Files.readString(target));
+    }
+
+    // the inflated content stream of a page object
+    private static String content(String pdf, byte[] bytes, int page) throws IOException {
+        Matcher contents = Pattern.compile("\n" + page + " 0 obj\n<< /Type /Page .* /Contents (\\d+) 0 R >>").matcher(pdf);
+        assertTrue(contents.find());
+        Matcher stream = Pattern.compile("\n" + contents.group(1) + " 0 obj\n<< /Length (\\d+) /Filter /FlateDecode >>\nstream\n")
+                .matcher(pdf);
+        assertTrue(stream.find());
+        int length = Integer.parseInt(stream.group(1));
+        ByteArrayOutputStream inflated = new ByteArrayOutputStream();
+        try (InflaterOutputStream out = new InflaterOutputStream(inflated)) {
+            out.write(Arrays.copyOfRange(bytes, stream.end(), stream.end() + length));
+        }
+        return inflated.toString(StandardCharsets.ISO_8859_1);
+    }
+}
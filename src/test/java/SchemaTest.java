@@ -0,0 +1,159 @@
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class SchemaTest {
+    // what the counter and rollup triggers keep, worked out from scratch
+    private static final String COUNTERS = "SELECT event_id, participant_count, student_count, staff_count FROM events";
+    private static final String COUNTED = "SELECT e.event_id, COUNT(p.id), COUNT(CASE WHEN p.type = 'Student' THEN 1 END),"
+            + " COUNT(CASE WHEN p.type = 'Staff' THEN 1 END)"
+            + " FROM events e LEFT JOIN participants p ON p.event_id = e.event_id GROUP BY e.event_id";
+    private static final String[][] ROLLUPS = {
+            {"SELECT * FROM rollup_month", "SELECT substr(event_date, 1, 7), COUNT(*), SUM(participant_count),"
+                    + " SUM(student_count), SUM(staff_count) FROM events GROUP BY 1"},
+            {"SELECT * FROM rollup_venue", "SELECT venue, COUNT(*), SUM(participant_count) FROM events GROUP BY 1"},
+            {"SELECT * FROM rollup_organizer", "SELECT organizer, COUNT(*), SUM(participant_count) FROM events GROUP BY 1"},
+    };
+
+    private Connection conn;
+    private Statement stmt;
+
+    @BeforeEach
+    void open() throws SQLException {
+        conn = DriverManager.getConnection("jdbc:sqlite::memory:");
+        stmt = conn.createStatement();
+    }
+
+    @AfterEach
+    void close() throws SQLException {
+        conn.close();
+    }
+
+    private long count(String sql) throws SQLException {
+        try (ResultSet rs = stmt.executeQuery(sql)) {
+            return rs.next() ? rs.getLong(1) : -1;
+        }
+    }
+
+    // rows in one query and not the other, either way round
+    private void assertSameRows(String actual, String expected) throws SQLException {
+        assertEquals(0, count("SELECT COUNT(*) FROM (" + actual + " EXCEPT " + expected + ")"), actual);
+        assertEquals(0, count("SELECT COUNT(*) FROM (" + expected + " EXCEPT " + actual + ")"), actual);
+    }
+
+    private void assertConsistent() throws SQLException {
+        assertSameRows(COUNTERS, COUNTED);
+        for (String[] rollup : ROLLUPS) assertSameRows(rollup[0], rollup[1]);
+    }
+
+    private void addEvent(int id, String date, String venue, String organizer) throws SQLException {
+        stmt.execute("INSERT INTO events (event_id, event_name, event_date, venue, organizer) VALUES ("
+                + id + ", 'Event " + id + "', '" + date + "', '" + venue + "', '" + organizer + "')");
+    }
+
+    private void register(int event, String name, String type) throws SQLException {
+        stmt.execute("INSERT INTO participants (event_id, name, type) VALUES (" + event + ", '" + name + "', '" + type + "')");
+    }
+
+    @Test
+    void freshDatabaseIsAtTheLatestVersion() throws SQLException {
+        Schema.init(conn);
+        assertEquals(Schema.VERSION, Schema.version(conn));
+        // a second init is a no-op
+        Schema.init(conn);
+        assertEquals(Schema.VERSION, Schema.version(conn));
+        assertEquals(1, count("SELECT COUNT(*) FROM users WHERE username = 'kalokoh'"));
+    }
+
+    @Test
+    void migrationFillsCountersAndRollupsFromExistingRows() throws SQLException {
+        // the tables as the first release created them, with data in them
+        stmt.execute("CREATE TABLE events (event_id INTEGER PRIMARY KEY AUTOINCREMENT, event_name TEXT NOT NULL,"
+                + " event_date TEXT NOT NULL, venue TEXT NOT NULL, organizer TEXT NOT NULL)");
+        stmt.execute("CREATE TABLE participants (id INTEGER PRIMARY KEY AUTOINCREMENT, event_id INTEGER,"
+                + " name TEXT NOT NULL, type TEXT NOT NULL, FOREIGN KEY(event_id) REFERENCES events(event_id))");
+        addEvent(1, "2026-03-02", "Hall A", "Dean");
+        addEvent(2, "2026-03-20", "Hall B", "Dean");
+        addEvent(3, "2026-04-01", "Hall A", "Registrar");
+        register(1, "Ada", "Student");
+        register(1, "Grace", "Staff");
+        register(2, "Alan", "Student");
+
+        Schema.init(conn);
+        assertEquals(Schema.VERSION, Schema.version(conn));
+        assertEquals(2, count("SELECT participant_count FROM events WHERE event_id = 1"));
+        assertEquals(3, count("SELECT participants FROM rollup_month WHERE month = '2026-03'"));
+        assertConsistent();
+    }
+
+    @Test
+    void triggersKeepCountersAndRollupsInStep() throws SQLException {
+        Schema.init(conn);
+        addEvent(1, "2026-03-02", "Hall A", "Dean");
+        addEvent(2, "2026-03-20", "Hall B", "Dean");
+        addEvent(3, "2026-04-01", "Hall A", "Registrar");
+        for (int i = 0; i < 30; i++) register(1 + i % 3, "Person " + i, i % 4 == 0 ? "Staff" : "Student");
+        assertConsistent();
+
+        // type changes, a participant moving events, and a removal
+        stmt.execute("UPDATE participants SET type = 'Staff' WHERE name = 'Person 1'");
+        stmt.execute("UPDATE participants SET event_id = 3 WHERE name = 'Person 2'");
+        stmt.execute("DELETE FROM participants WHERE name = 'Person 5'");
+        assertConsistent();
+
+        // an event moving month, venue and organizer, and a rename that moves nothing
+        stmt.execute("UPDATE events SET event_date = '2026-05-09', venue = 'Hall C' WHERE event_id = 1");
+        stmt.execute("UPDATE events SET organizer = 'Registrar' WHERE event_id = 2");
+        stmt.execute("UPDATE events SET event_name = 'Renamed' WHERE event_id = 3");
+        assertConsistent();
+
+        // the last event of a month takes its rollup row with it
+        stmt.execute("DELETE FROM participants WHERE event_id = 3");
+        stmt.execute("DELETE FROM events WHERE event_id = 3");
+        assertConsistent();
+        assertEquals(0, count("SELECT COUNT(*) FROM rollup_month WHERE month = '2026-04'"));
+    }
+
+    @Test
+    void dashboardReadsTheRollups() throws SQLException {
+        Schema.init(conn);
+        addEvent(1, "2026-03-02", "Hall A", "Dean");
+        addEvent(2, "2026-03-20", "Hall B", "Dean");
+        addEvent(3, "2026-04-01", "Hall B", "Registrar");
+        register(1, "Ada", "Student");
+        register(2, "Grace", "Staff");
+        register(3, "Alan", "Student");
+        register(3, "Edsger", "Staff");
+
+        Dashboard.Data data = Dashboard.load(new StatementCache(conn, StatementCache.DEFAULT_CAPACITY));
+        assertEquals(3, data.events());
+        assertEquals(4, data.participants());
+        assertEquals(2, data.students());
+        assertEquals(2, data.staff());
+        assertEquals(List.of("2026-03", "2026-04"), data.months().stream().map(Dashboard.Month::month).toList());
+        assertEquals(new Dashboard.Ranked("Hall B", 2, 3), data.venues().get(0));
+        assertEquals(new Dashboard.Ranked("Hall A", 1, 1), data.venues().get(1));
+    }
+
+    @Test
+    void everyEventWriteIsLogged() throws SQLException {
+        Schema.init(conn);
+        addEvent(1, "2026-03-02", "Hall A", "Dean");
+        register(1, "Ada", "Student");
+        stmt.execute("DELETE FROM participants");
+        stmt.execute("DELETE FROM events");
+        // insert, two counter updates through the participant writes, delete
+        try (ResultSet rs = stmt.executeQuery("SELECT group_concat(op, '') FROM (SELECT op FROM event_changes ORDER BY seq)")) {
+            assertTrue(rs.next());
+            assertEquals("IUUD", rs.getString(1));
+        }
+    }
+}
@@ -0,0 +1,97 @@
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class StatementCacheTest {
+    private Connection conn;
+    private StatementCache cache;
+
+    @BeforeEach
+    void open() throws SQLException {
+        conn = DriverManager.getConnection("jdbc:sqlite::memory:");
+        cache = new StatementCache(conn, 2);
+    }
+
+    @AfterEach
+    void close() throws SQLException {
+        cache.close();
+        conn.close();
+    }
+
+    private static int value(PreparedStatement ps) throws SQLException {
+        try (ResultSet rs = ps.executeQuery()) {
+            return rs.next() ? rs.getInt(1) : -1;
+        }
+    }
+
+    @Test
+    void reusesTheStatementForTheSameSql() throws SQLException {
+        PreparedStatement first = cache.prepare("SELECT ? + 1");
+        first.setInt(1, 41);
+        assertEquals(42, value(first));
+        PreparedStatement again = cache.prepare("SELECT ? + 1");
+        assertSame(first, again);
+        assertEquals(1, cache.hits());
+        assertEquals(1, cache.misses());
+    }
+
+    @Test
+    void clearsParametersOnReuse() throws SQLException {
+        cache.prepare("SELECT ?").setInt(1, 7);
+        PreparedStatement ps = cache.prepare("SELECT ?");
+        // an unbound parameter reads as null, not the 7 from last time
+        try (ResultSet rs = ps.executeQuery()) {
+            assertTrue(rs.next());
+            assertNull(rs.getObject(1));
+        }
+    }
+
+    @Test
+    void evictsAndClosesTheLeastRecentlyUsed() throws SQLException {
+        PreparedStatement one = cache.prepare("SELECT 1");
+        PreparedStatement two = cache.prepare("SELECT 2");
+        // using one makes two the eldest
+        assertSame(one, cache.prepare("SELECT 1"));
+        PreparedStatement three = cache.prepare("SELECT 3");
+
+        assertEquals(2, cache.size());
+        assertEquals(1, cache.evictions());
+        assertTrue(two.isClosed());
+        assertFalse(one.isClosed());
+        assertFalse(three.isClosed());
+        // asked for again it is prepared anew, pushing out one
+        PreparedStatement twoAgain = cache.prepare("SELECT 2");
+        assertNotSame(two, twoAgain);
+        assertEquals(2, value(twoAgain));
+        assertTrue(one.isClosed());
+        assertEquals(2, cache.evictions());
+    }
+
+    @Test
+    void closeClosesEverything() throws SQLException {
+        PreparedStatement one = cache.prepare("SELECT 1");
+        PreparedStatement two = cache.prepare("SELECT 2");
+        cache.close();
+        assertTrue(one.isClosed());
+        assertTrue(two.isClosed());
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    void tracesEachSqlOnce() throws SQLException {
+        cache.beginTrace();
+        cache.prepare("SELECT 1");
+        cache.prepare("SELECT 2");
+        cache.prepare("SELECT 1");
+        assertEquals("SELECT 1;\nSELECT 2", cache.endTrace());
+        cache.prepare("SELECT 3");
+        assertEquals("", cache.endTrace());
+    }
+}
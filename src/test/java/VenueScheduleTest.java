@@ -0,0 +1,117 @@
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class VenueScheduleTest {
+    private static final LocalDate DAY = LocalDate.of(2026, 3, 2);
+
+    private Connection conn;
+    private StatementCache statements;
+    private final VenueSchedule schedule = new VenueSchedule();
+
+    @BeforeEach
+    void open() throws SQLException {
+        conn = DriverManager.getConnection("jdbc:sqlite::memory:");
+        Schema.init(conn);
+        statements = new StatementCache(conn, StatementCache.DEFAULT_CAPACITY);
+    }
+
+    @AfterEach
+    void close() throws SQLException {
+        conn.close();
+    }
+
+    private int book(String venue, LocalDate date, String start, String end) throws SQLException {
+        try (PreparedStatement ps = conn.prepareStatement("INSERT INTO events"
+                + " (event_name, event_date, venue, organizer, start_time, end_time) VALUES ('Talk', ?, ?, 'Dean', ?, ?)")) {
+            ps.setString(1, date.toString());
+            ps.setString(2, venue);
+            ps.setString(3, start);
+            ps.setString(4, end);
+            ps.executeUpdate();
+        }
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT last_insert_rowid()")) {
+            return rs.next() ? rs.getInt(1) : -1;
+        }
+    }
+
+    private void delete(int id) throws SQLException {
+        try (PreparedStatement ps = conn.prepareStatement("DELETE FROM events WHERE event_id = ?")) {
+            ps.setInt(1, id);
+            ps.executeUpdate();
+        }
+    }
+
+    @Test
+    void conflictsAreHalfOpen() throws SQLException {
+        int talk = book("Hall A", DAY, "10:00", "12:00");
+        schedule.sync(statements);
+        String date = DAY.toString();
+        assertEquals(List.of(), schedule.conflicts("Hall A", date, "08:00", "10:00", -1));
+        assertEquals(List.of(), schedule.conflicts("Hall A", date, "12:00", "13:00", -1));
+        assertEquals(List.of(talk), schedule.conflicts("Hall A", date, "09:00", "10:01", -1));
+        assertEquals(List.of(talk), schedule.conflicts("Hall A", date, "11:59", "13:00", -1));
+        // the event being edited does not conflict with itself, nor other venues or days
+        assertEquals(List.of(), schedule.conflicts("Hall A", date, "10:00", "12:00", talk));
+        assertEquals(List.of(), schedule.conflicts("Hall B", date, "10:00", "12:00", -1));
+        assertEquals(List.of(), schedule.conflicts("Hall A", DAY.plusDays(1).toString(), "10:00", "12:00", -1));
+    }
+
+    @Test
+    void syncPicksUpChanges() throws SQLException {
+        schedule.sync(statements);
+        String date = DAY.toString();
+        int talk = book("Hall A", DAY, "10:00", "12:00");
+        schedule.sync(statements);
+        assertEquals(List.of(talk), schedule.conflicts("Hall A", date, "11:00", "11:30", -1));
+        delete(talk);
+        schedule.sync(statements);
+        assertEquals(List.of(), schedule.conflicts("Hall A", date, "11:00", "11:30", -1));
+    }
+
+    @Test
+    void freeSlotFindsTheFirstGapThatFits() throws SQLException {
+        book("Hall A", DAY, "08:00", "09:00");
+        book("Hall A", DAY, "09:30", "12:00");
+        book("Hall A", DAY, "13:00", "22:00");
+        schedule.sync(statements);
+        // half an hour fits between the first two, a full hour only over lunch
+        assertEquals(new VenueSchedule.Slot(DAY.atTime(9, 0), DAY.atTime(9, 30)),
+                schedule.freeSlot("Hall A", DAY, DAY, 30));
+        assertEquals(new VenueSchedule.Slot(DAY.atTime(12, 0), DAY.atTime(13, 0)),
+                schedule.freeSlot("Hall A", DAY, DAY, 60));
+    }
+
+    @Test
+    void freeSlotIsNullWhenNothingFits() throws SQLException {
+        book("Hall A", DAY, "08:00", "12:00");
+        book("Hall A", DAY, "12:30", "22:00");
+        book("Hall A", DAY.plusDays(1), "08:00", "22:00");
+        schedule.sync(statements);
+        assertNull(schedule.freeSlot("Hall A", DAY, DAY.plusDays(1), 31));
+        // longer than the venue is open
+        assertNull(schedule.freeSlot("Hall B", DAY, DAY.plusDays(7), 15 * 60));
+    }
+
+    @Test
+    void freeSlotMovesOnToTheNextDay() throws SQLException {
+        book("Hall A", DAY, "08:00", "22:00");
+        schedule.sync(statements);
+        LocalDate next = DAY.plusDays(1);
+        VenueSchedule.Slot slot = schedule.freeSlot("Hall A", DAY, next, 120);
+        assertEquals(new VenueSchedule.Slot(next.atTime(8, 0), next.atTime(22, 0)), slot);
+        assertEquals(LocalDateTime.of(next, VenueSchedule.OPENS), slot.start());
+    }
+}